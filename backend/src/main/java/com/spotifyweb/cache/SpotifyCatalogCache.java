@@ -0,0 +1,126 @@
+package com.spotifyweb.cache;
+
+import com.spotifyweb.dto.LibrarySummaryDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.model_objects.specification.Album;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches de leitura do catálogo do Spotify, cada um com o TTL adequado ao tipo de dado.
+ *
+ * Álbuns praticamente não mudam, então metadados e faixas ficam por horas. Listas de faixas
+ * de playlist são indexadas por {@code playlistId + snapshot_id}: qualquer alteração na
+ * playlist gera um snapshot novo e a entrada antiga simplesmente deixa de ser usada. O
+ * snapshot em si é consultado por usuário (respeitando playlists privadas) com TTL curto, assim
+ * como os totais da biblioteca exibidos no dashboard.
+ */
+@Component
+public class SpotifyCatalogCache {
+
+    @Value("${spotify.cache.album-ttl-ms:21600000}")
+    private long albumTtlMs;
+
+    @Value("${spotify.cache.playlist-tracks-ttl-ms:3600000}")
+    private long playlistTracksTtlMs;
+
+    @Value("${spotify.cache.playlist-snapshot-ttl-ms:30000}")
+    private long playlistSnapshotTtlMs;
+
+    @Value("${spotify.cache.library-summary-ttl-ms:60000}")
+    private long librarySummaryTtlMs;
+
+    @Value("${spotify.cache.max-albums:2000}")
+    private long maxAlbums;
+
+    @Value("${spotify.cache.max-tracks:200000}")
+    private long maxTracks;
+
+    private TtlCache<String, Album> albums;
+    private TtlCache<String, List<Track>> albumTracks;
+    private TtlCache<String, List<Track>> playlistTracks;
+    private TtlCache<String, PlaylistHead> playlistHeads;
+    private TtlCache<Long, LibrarySummaryDTO> librarySummaries;
+
+    @PostConstruct
+    void init() {
+        albums = new TtlCache<>("albums", maxAlbums, albumTtlMs);
+        // O limite de faixas é dividido entre álbuns e playlists, que costumam ser bem maiores
+        albumTracks = new TtlCache<>("albumTracks", maxTracks / 4, albumTtlMs, List::size);
+        playlistTracks = new TtlCache<>("playlistTracks", maxTracks - maxTracks / 4, playlistTracksTtlMs, List::size);
+        playlistHeads = new TtlCache<>("playlistSnapshots", 10000, playlistSnapshotTtlMs);
+        librarySummaries = new TtlCache<>("librarySummaries", 10000, librarySummaryTtlMs);
+    }
+
+    public TtlCache<String, Album> albums() {
+        return albums;
+    }
+
+    public TtlCache<String, List<Track>> albumTracks() {
+        return albumTracks;
+    }
+
+    public TtlCache<String, List<Track>> playlistTracks() {
+        return playlistTracks;
+    }
+
+    public TtlCache<String, PlaylistHead> playlistHeads() {
+        return playlistHeads;
+    }
+
+    public TtlCache<Long, LibrarySummaryDTO> librarySummaries() {
+        return librarySummaries;
+    }
+
+    public static String playlistTracksKey(String playlistId, String snapshotId) {
+        return playlistId + ":" + snapshotId;
+    }
+
+    public static String playlistHeadKey(Long userId, String playlistId) {
+        return userId + ":" + playlistId;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void cleanUp() {
+        albums.cleanUp();
+        albumTracks.cleanUp();
+        playlistTracks.cleanUp();
+        playlistHeads.cleanUp();
+        librarySummaries.cleanUp();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (TtlCache<?, ?> cache : List.of(albums, albumTracks, playlistTracks, playlistHeads, librarySummaries)) {
+            stats.put(cache.getName(), cache.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Nome e snapshot_id atuais de uma playlist.
+     */
+    public static class PlaylistHead {
+        private final String name;
+        private final String snapshotId;
+
+        public PlaylistHead(String name, String snapshotId) {
+            this.name = name;
+            this.snapshotId = snapshotId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.spotifyweb.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache LRU limitado por peso, com expiração por entrada.
+ *
+ * O peso de cada valor vem do {@code weigher} (por exemplo, o número de faixas de uma lista),
+ * então uma playlist de 10 mil faixas ocupa o espaço de muitas entradas pequenas. Quando o
+ * peso total passa de {@code maxWeight} as entradas menos usadas recentemente são descartadas.
+ */
+public class TtlCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final long defaultTtlNanos;
+    private final ToIntFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public TtlCache(String name, long maxWeight, long defaultTtlMillis, ToIntFunction<V> weigher) {
+        this.name = name;
+        this.maxWeight = Math.max(1, maxWeight);
+        this.defaultTtlNanos = TimeUnit.MILLISECONDS.toNanos(defaultTtlMillis);
+        this.weigher = weigher;
+    }
+
+    public TtlCache(String name, long maxEntries, long defaultTtlMillis) {
+        this(name, maxEntries, defaultTtlMillis, value -> 1);
+    }
+
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                weight -= entry.weight;
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, TimeUnit.NANOSECONDS.toMillis(defaultTtlNanos));
+    }
+
+    public void put(K key, V value, long ttlMillis) {
+        if (value == null || ttlMillis <= 0) {
+            return;
+        }
+        int entryWeight = Math.max(1, weigher.applyAsInt(value));
+        if (entryWeight > maxWeight) {
+            // Não vale expulsar o cache inteiro por um único valor enorme
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, entryWeight, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        synchronized (entries) {
+            Entry<V> previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entryWeight;
+            Iterator<Entry<V>> eldest = entries.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Entry<V> evicted = eldest.next();
+                eldest.remove();
+                weight -= evicted.weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        }
+    }
+
+    /**
+     * Remove entradas expiradas que não foram mais consultadas.
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry<V> entry = iterator.next();
+                if (entry.isExpired(now)) {
+                    iterator.remove();
+                    weight -= entry.weight;
+                    expirations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("weight", weight);
+        }
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long expiresAt;
+
+        private Entry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
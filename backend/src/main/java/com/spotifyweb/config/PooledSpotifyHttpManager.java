@@ -0,0 +1,182 @@
+package com.spotifyweb.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotifyweb.service.SpotifyRequestGovernor;
+import org.apache.hc.client5.http.classic.methods.HttpDelete;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpPut;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import se.michaelthelin.spotify.IHttpManager;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.exceptions.detailed.BadGatewayException;
+import se.michaelthelin.spotify.exceptions.detailed.BadRequestException;
+import se.michaelthelin.spotify.exceptions.detailed.ForbiddenException;
+import se.michaelthelin.spotify.exceptions.detailed.InternalServerErrorException;
+import se.michaelthelin.spotify.exceptions.detailed.NotFoundException;
+import se.michaelthelin.spotify.exceptions.detailed.ServiceUnavailableException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link IHttpManager} sobre um único {@link CloseableHttpClient} com pool de conexões,
+ * compartilhado por todos os usuários.
+ *
+ * O SpotifyHttpManager da biblioteca cria um BasicHttpClientConnectionManager (uma conexão só)
+ * a cada instância. O token de acesso vai no header de cada requisição, montado pelo SpotifyApi
+ * do usuário, então compartilhar o cliente não mistura credenciais entre usuários.
+ * O mapeamento de status HTTP para exceções segue o da biblioteca, e toda requisição passa pelo
+ * {@link SpotifyRequestGovernor} (limites por aplicação e por token, 429 e 5xx).
+ */
+public class PooledSpotifyHttpManager implements IHttpManager {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CloseableHttpClient httpClient;
+    private final SpotifyRequestGovernor governor;
+
+    public PooledSpotifyHttpManager(CloseableHttpClient httpClient, SpotifyRequestGovernor governor) {
+        this.httpClient = httpClient;
+        this.governor = governor;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException, ParseException {
+        HttpGet request = new HttpGet(uri);
+        request.setHeaders(headers);
+        return execute(request);
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        HttpPost request = new HttpPost(uri);
+        request.setHeaders(headers);
+        request.setEntity(body);
+        return execute(request);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        HttpPut request = new HttpPut(uri);
+        request.setHeaders(headers);
+        request.setEntity(body);
+        return execute(request);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        HttpDelete request = new HttpDelete(uri);
+        request.setHeaders(headers);
+        request.setEntity(body);
+        return execute(request);
+    }
+
+    private String execute(ClassicHttpRequest request) throws IOException, SpotifyWebApiException, ParseException {
+        // POST pode não ser idempotente (ex.: adicionar faixas); só repete em 429, quando o Spotify não processou
+        boolean idempotent = !"POST".equalsIgnoreCase(request.getMethod());
+        return governor.execute(userKey(request), idempotent, () -> send(request));
+    }
+
+    private String send(ClassicHttpRequest request) throws IOException, SpotifyWebApiException {
+        RawResponse response = httpClient.execute(request, httpResponse -> {
+            HttpEntity entity = httpResponse.getEntity();
+            String body = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : null;
+            Header retryAfter = httpResponse.getFirstHeader("Retry-After");
+            return new RawResponse(httpResponse.getCode(), body, retryAfter != null ? retryAfter.getValue() : null);
+        });
+        return handle(response);
+    }
+
+    private String handle(RawResponse response) throws SpotifyWebApiException {
+        if (response.code < 400) {
+            return response.body;
+        }
+        String message = extractErrorMessage(response.body);
+        switch (response.code) {
+            case 400:
+                throw new BadRequestException(message);
+            case 401:
+                throw new UnauthorizedException(message);
+            case 403:
+                throw new ForbiddenException(message);
+            case 404:
+                throw new NotFoundException(message);
+            case 429:
+                Integer retryAfter = parseRetryAfter(response.retryAfter);
+                throw retryAfter != null
+                        ? new TooManyRequestsException(message, retryAfter)
+                        : new TooManyRequestsException(message);
+            case 500:
+                throw new InternalServerErrorException(message);
+            case 502:
+                throw new BadGatewayException(message);
+            case 503:
+                throw new ServiceUnavailableException(message);
+            default:
+                return response.body;
+        }
+    }
+
+    /**
+     * Chave do balde por usuário: derivada do token Bearer, sem guardar o token em si.
+     */
+    private String userKey(ClassicHttpRequest request) {
+        Header authorization = request.getFirstHeader("Authorization");
+        if (authorization == null || authorization.getValue() == null || !authorization.getValue().startsWith("Bearer ")) {
+            return null;
+        }
+        return Integer.toHexString(authorization.getValue().hashCode());
+    }
+
+    private String extractErrorMessage(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (root.hasNonNull("error_description")) {
+                return root.get("error_description").asText();
+            }
+            JsonNode error = root.get("error");
+            if (error != null && error.isObject() && error.hasNonNull("message")) {
+                return error.get("message").asText();
+            }
+        } catch (IOException ignored) {
+            // corpo que não é JSON: devolve como veio
+        }
+        return body;
+    }
+
+    private Integer parseRetryAfter(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class RawResponse {
+        private final int code;
+        private final String body;
+        private final String retryAfter;
+
+        private RawResponse(int code, String body, String retryAfter) {
+            this.code = code;
+            this.body = body;
+            this.retryAfter = retryAfter;
+        }
+    }
+}
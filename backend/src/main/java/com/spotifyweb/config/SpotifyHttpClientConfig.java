@@ -0,0 +1,73 @@
+package com.spotifyweb.config;
+
+import com.spotifyweb.service.SpotifyRequestGovernor;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.michaelthelin.spotify.IHttpManager;
+
+/**
+ * Cliente HTTP único para a API do Spotify: pool de conexões com keep-alive, limite de
+ * conexões por rota e sem gerenciamento de cookies (o cliente é compartilhado entre usuários).
+ * O cliente não repete requisições; isso é feito pelo {@link SpotifyRequestGovernor}.
+ */
+@Configuration
+public class SpotifyHttpClientConfig {
+
+    @Value("${spotify.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${spotify.http.max-connections-per-route:32}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${spotify.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${spotify.http.response-timeout-ms:15000}")
+    private long responseTimeoutMs;
+
+    @Value("${spotify.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient spotifyHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                // Novas tentativas (429/5xx, com backoff) ficam só no SpotifyRequestGovernor
+                .disableAutomaticRetries()
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
+    @Bean
+    public IHttpManager spotifyHttpManager(CloseableHttpClient spotifyHttpClient, SpotifyRequestGovernor governor) {
+        return new PooledSpotifyHttpManager(spotifyHttpClient, governor);
+    }
+}
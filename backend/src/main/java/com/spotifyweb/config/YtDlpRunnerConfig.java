@@ -0,0 +1,46 @@
+package com.spotifyweb.config;
+
+import com.spotifyweb.service.PooledYtDlpRunner;
+import com.spotifyweb.service.ProcessYtDlpRunner;
+import com.spotifyweb.service.YtDlpRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Escolhe como o yt-dlp é executado: um processo por faixa ({@code download.ytdlp.runner=process},
+ * padrão) ou um pool de workers Python aquecidos ({@code pool}).
+ */
+@Configuration
+public class YtDlpRunnerConfig {
+
+    @Value("${download.ytdlp.executable:yt-dlp}")
+    private String executable;
+
+    @Bean
+    @ConditionalOnProperty(name = "download.ytdlp.runner", havingValue = "process", matchIfMissing = true)
+    public YtDlpRunner processYtDlpRunner() {
+        return new ProcessYtDlpRunner(executable);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "download.ytdlp.runner", havingValue = "pool")
+    public YtDlpRunner pooledYtDlpRunner(
+            @Value("${download.ytdlp.pool.python:python3}") String python,
+            @Value("${download.ytdlp.pool.worker-script:}") String workerScript,
+            @Value("${download.ytdlp.pool.size:${download.max-processes:4}}") int poolSize,
+            @Value("${download.ytdlp.pool.request-timeout-ms:600000}") long requestTimeoutMs,
+            @Value("${download.ytdlp.pool.acquire-timeout-ms:300000}") long acquireTimeoutMs,
+            @Value("${download.ytdlp.pool.start-timeout-ms:30000}") long startTimeoutMs,
+            @Value("${download.ytdlp.pool.health-check-interval-ms:30000}") long healthCheckIntervalMs,
+            @Value("${download.ytdlp.pool.max-jobs-per-worker:200}") int maxJobsPerWorker) throws IOException {
+        PooledYtDlpRunner runner = new PooledYtDlpRunner(python, workerScript, poolSize, requestTimeoutMs,
+                acquireTimeoutMs, startTimeoutMs, healthCheckIntervalMs, maxJobsPerWorker,
+                new ProcessYtDlpRunner(executable));
+        runner.start();
+        return runner;
+    }
+}
@@ -32,9 +32,7 @@ public class AlbumController {
     private UserService userService;
 
     private User getUserFromAuth(Authentication authentication) {
-        String spotifyId = authentication.getName();
-        return userService.findBySpotifyId(spotifyId)
-                .orElseThrow(() -> new IllegalStateException("Usuário autenticado não encontrado: " + spotifyId));
+        return userService.getAuthenticatedUser(authentication);
     }
 
     @GetMapping
@@ -2,7 +2,9 @@ package com.spotifyweb.controller;
 
 import com.spotifyweb.dto.SpotifyConfigDTO;
 import com.spotifyweb.security.JwtUtil;
+import com.spotifyweb.security.OAuthStateStore;
 import com.spotifyweb.service.SpotifyService;
+import com.spotifyweb.service.SpotifyTokenManager;
 import com.spotifyweb.service.UserService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -19,10 +21,10 @@ import se.michaelthelin.spotify.model_objects.specification.User;
 import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -33,8 +35,8 @@ AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    // In-memory storage for state-credential mapping. Not suitable for production with multiple instances.
-    private final Map<String, SpotifyConfigDTO> stateStorage = new ConcurrentHashMap<>();
+    @Autowired
+    private OAuthStateStore oauthStateStore;
 
     @Autowired
     private SpotifyService spotifyService;
@@ -42,20 +44,20 @@ AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SpotifyTokenManager spotifyTokenManager;
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Value("${frontend.redirect-url}")
     private String frontendRedirectUrl;
 
-    @Value("${spotify.redirect-uri}")
-    private String spotifyRedirectUri;
-
     @PostMapping("/authorize")
     public ResponseEntity<Map<String, String>> getAuthorizationUrl(@Valid @RequestBody SpotifyConfigDTO configDTO) {
         try {
             String state = UUID.randomUUID().toString();
-            stateStorage.put(state, configDTO);
+            oauthStateStore.put(state, configDTO);
 
             String authUrl = spotifyService.getAuthorizationUrl(configDTO.getClientId(), configDTO.getClientSecret(), state);
             Map<String, String> response = new HashMap<>();
@@ -73,7 +75,7 @@ AuthController {
     public void handleCallback(@RequestParam String code, @RequestParam String state, HttpServletResponse response) throws IOException {
         logger.info("Callback received with code: {} and state: {}", code != null ? "present" : "null", state);
 
-        SpotifyConfigDTO config = stateStorage.remove(state);
+        SpotifyConfigDTO config = oauthStateStore.consume(state).orElse(null);
 
         if (config == null) {
             logger.error("Invalid or expired state parameter during callback. State: {}", state);
@@ -85,16 +87,13 @@ AuthController {
             logger.info("Attempting to authenticate with Spotify using clientId: {}", config.getClientId());
 
             // Create Spotify API instance
-            SpotifyApi spotifyApi = new SpotifyApi.Builder()
-                    .setClientId(config.getClientId())
-                    .setClientSecret(config.getClientSecret())
-                    .setRedirectUri(java.net.URI.create(spotifyRedirectUri))
-                    .build();
+            SpotifyApi spotifyApi = spotifyService.getApiForClient(config.getClientId(), config.getClientSecret());
 
             // Get access token
             AuthorizationCodeCredentials authorizationCodeCredentials = spotifyApi.authorizationCode(code).build().execute();
             String accessToken = authorizationCodeCredentials.getAccessToken();
             String refreshToken = authorizationCodeCredentials.getRefreshToken();
+            LocalDateTime tokenExpiresAt = LocalDateTime.now().plusSeconds(authorizationCodeCredentials.getExpiresIn());
 
             // Set access token to get user info
             spotifyApi.setAccessToken(accessToken);
@@ -110,8 +109,12 @@ AuthController {
                     spotifyUser.getEmail(),
                     accessToken,
                     refreshToken,
+                    tokenExpiresAt,
+                    config.getClientId(),
+                    config.getClientSecret(),
                     profileImageUrl
             );
+            spotifyTokenManager.invalidate(user.getId());
 
             // Generate JWT token
             Map<String, Object> claims = new HashMap<>();
@@ -147,10 +150,8 @@ AuthController {
 
         if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
             // The user is authenticated by JwtAuthenticationFilter
-            String spotifyId = authentication.getName();
-            
-            // Fetch our custom user entity from the database
-            return userService.findBySpotifyId(spotifyId).map(user -> {
+            // The principal already carries our custom user entity
+            return userService.findAuthenticatedUser(authentication).map(user -> {
                 response.put("authenticated", true);
                 response.put("user", user.getDisplayName());
                 response.put("email", user.getEmail());
@@ -196,9 +197,10 @@ AuthController {
     public ResponseEntity<Map<String, Object>> getDebugInfo() {
         Map<String, Object> response = new HashMap<>();
         try {
-            response.put("stateStorageSize", stateStorage.size());
+            long pendingStates = oauthStateStore.size();
+            response.put("stateStorageSize", pendingStates);
             response.put("jwtSecret", "configured");
-            logger.info("Debug - State storage size: {}", stateStorage.size());
+            logger.info("Debug - State storage size: {}", pendingStates);
         } catch (Exception e) {
             response.put("error", e.getMessage());
         }
@@ -3,6 +3,7 @@ package com.spotifyweb.controller;
 import com.spotifyweb.dto.DownloadRequestDTO;
 import com.spotifyweb.entity.User;
 import com.spotifyweb.service.DownloadService;
+import com.spotifyweb.service.PlaylistSyncService;
 import com.spotifyweb.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,13 +23,14 @@ public class DownloadController {
     @Autowired
     private DownloadService downloadService;
 
+    @Autowired
+    private PlaylistSyncService playlistSyncService;
+
     @Autowired
     private UserService userService;
 
     private User getUserFromAuth(Authentication authentication) {
-        String spotifyId = authentication.getName();
-        return userService.findBySpotifyId(spotifyId)
-                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database: " + spotifyId));
+        return userService.getAuthenticatedUser(authentication);
     }
 
     @PostMapping("/playlist")
@@ -68,6 +70,28 @@ public class DownloadController {
         }
     }
 
+    /**
+     * Sincroniza uma playlist já baixada: só as faixas novas entram na fila. Com
+     * {@code prune=true} os arquivos de faixas removidas da playlist são apagados.
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<?> syncPlaylist(@RequestBody Map<String, Object> request, Authentication authentication) {
+        Object playlistId = request.get("playlistId");
+        if (playlistId == null || playlistId.toString().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Playlist ID is required"));
+        }
+        boolean prune = Boolean.parseBoolean(String.valueOf(request.getOrDefault("prune", "false")));
+        try {
+            User user = getUserFromAuth(authentication);
+            return ResponseEntity.ok(playlistSyncService.syncPlaylist(playlistId.toString(), user, prune));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Failed to sync playlist {}", playlistId, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to sync playlist: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/status/{jobId}")
     public ResponseEntity<?> getDownloadStatus(@PathVariable String jobId, Authentication authentication) {
         try {
@@ -0,0 +1,99 @@
+package com.spotifyweb.controller;
+
+import com.spotifyweb.cache.SpotifyCatalogCache;
+import com.spotifyweb.service.DownloadPipeline;
+import com.spotifyweb.service.DownloadScheduler;
+import com.spotifyweb.service.SpotifyRequestGovernor;
+import com.spotifyweb.service.SpotifyTokenManager;
+import com.spotifyweb.service.TrackResolutionService;
+import com.spotifyweb.service.TrackStore;
+import com.spotifyweb.service.YouTubeMatcher;
+import com.spotifyweb.service.YtDlpRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Métricas internas (filas de todos os usuários, estado de tokens e rate limit, caminhos do
+ * store). Fica sob {@code /admin}, restrito a {@code ROLE_ADMIN} pelo SecurityConfig.
+ */
+@RestController
+@RequestMapping("/admin/metrics")
+public class MetricsController {
+
+    @Autowired
+    private DownloadScheduler downloadScheduler;
+
+    @Autowired
+    private SpotifyRequestGovernor spotifyRequestGovernor;
+
+    @Autowired
+    private SpotifyCatalogCache catalogCache;
+
+    @Autowired
+    private SpotifyTokenManager spotifyTokenManager;
+
+    @Autowired
+    private YtDlpRunner ytDlpRunner;
+
+    @Autowired
+    private TrackStore trackStore;
+
+    @Autowired
+    private TrackResolutionService trackResolutionService;
+
+    @Autowired
+    private DownloadPipeline downloadPipeline;
+
+    @Autowired
+    private YouTubeMatcher youTubeMatcher;
+
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> getSchedulerMetrics() {
+        return ResponseEntity.ok(downloadScheduler.snapshot());
+    }
+
+    @GetMapping("/spotify")
+    public ResponseEntity<Map<String, Object>> getSpotifyMetrics() {
+        return ResponseEntity.ok(spotifyRequestGovernor.snapshot());
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(catalogCache.stats());
+    }
+
+    @GetMapping("/tokens")
+    public ResponseEntity<Map<String, Object>> getTokenMetrics() {
+        return ResponseEntity.ok(spotifyTokenManager.snapshot());
+    }
+
+    @GetMapping("/ytdlp")
+    public ResponseEntity<Map<String, Object>> getYtDlpMetrics() {
+        return ResponseEntity.ok(ytDlpRunner.snapshot());
+    }
+
+    @GetMapping("/store")
+    public ResponseEntity<Map<String, Object>> getStoreMetrics() {
+        return ResponseEntity.ok(trackStore.snapshot());
+    }
+
+    @GetMapping("/resolutions")
+    public ResponseEntity<Map<String, Object>> getResolutionMetrics() {
+        return ResponseEntity.ok(trackResolutionService.snapshot());
+    }
+
+    @GetMapping("/pipeline")
+    public ResponseEntity<Map<String, Object>> getPipelineMetrics() {
+        return ResponseEntity.ok(downloadPipeline.snapshot());
+    }
+
+    @GetMapping("/matching")
+    public ResponseEntity<Map<String, Object>> getMatchingMetrics() {
+        return ResponseEntity.ok(youTubeMatcher.snapshot());
+    }
+}
@@ -1,18 +1,26 @@
 package com.spotifyweb.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotifyweb.dto.AddTracksRequestDTO;
 import com.spotifyweb.dto.CreatePlaylistRequestDTO;
+import com.spotifyweb.dto.LibrarySummaryDTO;
 import com.spotifyweb.dto.PlaylistDTO;
+import com.spotifyweb.dto.TrackDTO;
 import com.spotifyweb.entity.User;
 import com.spotifyweb.service.SpotifyService;
 import com.spotifyweb.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import se.michaelthelin.spotify.model_objects.specification.Track;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +30,7 @@ import java.util.Map;
 public class PlaylistController {
 
     private static final Logger logger = LoggerFactory.getLogger(PlaylistController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @Autowired
     private SpotifyService spotifyService;
@@ -29,13 +38,14 @@ public class PlaylistController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Helper method to retrieve the custom User entity from the Authentication principal.
      */
     private User getUserFromAuth(Authentication authentication) {
-        String spotifyId = authentication.getName();
-        return userService.findBySpotifyId(spotifyId)
-                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database: " + spotifyId));
+        return userService.getAuthenticatedUser(authentication);
     }
 
     @GetMapping
@@ -60,16 +70,8 @@ public class PlaylistController {
         logger.info("getLikedTracksInfo called for user: {}", authentication.getName());
         try {
             User user = getUserFromAuth(authentication);
-            var likedTracks = spotifyService.getLikedTracks(user);
-            PlaylistDTO likedPlaylist = new PlaylistDTO(
-                    "liked-tracks",
-                    "Músicas curtidas",
-                    "Coleção com todas as músicas que você favoritou no Spotify.",
-                    likedTracks.size(),
-                    null,
-                    user.getDisplayName()
-            );
-            return ResponseEntity.ok(likedPlaylist);
+            LibrarySummaryDTO summary = spotifyService.getLibrarySummary(user);
+            return ResponseEntity.ok(likedTracksPlaylist(user, summary));
         } catch (IllegalStateException e) {
             logger.error("Authentication error in getLikedTracksInfo", e);
             return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
@@ -84,16 +86,8 @@ public class PlaylistController {
         logger.info("getTopTracksInfo called for user: {}", authentication.getName());
         try {
             User user = getUserFromAuth(authentication);
-            var topTracks = spotifyService.getTopTracks(user, Math.min(limit, 50));
-            PlaylistDTO topTracksPlaylist = new PlaylistDTO(
-                    "top-tracks",
-                    "Top músicas",
-                    "As músicas que você mais ouviu nos últimos tempos.",
-                    topTracks.size(),
-                    null,
-                    user.getDisplayName()
-            );
-            return ResponseEntity.ok(topTracksPlaylist);
+            LibrarySummaryDTO summary = spotifyService.getLibrarySummary(user);
+            return ResponseEntity.ok(topTracksPlaylist(user, summary, Math.min(limit, 50)));
         } catch (IllegalStateException e) {
             logger.error("Authentication error in getTopTracksInfo", e);
             return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
@@ -103,6 +97,50 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * Cartões de curtidas e top músicas do dashboard em uma única chamada.
+     */
+    @GetMapping("/library-summary")
+    public ResponseEntity<?> getLibrarySummary(Authentication authentication) {
+        logger.info("getLibrarySummary called for user: {}", authentication.getName());
+        try {
+            User user = getUserFromAuth(authentication);
+            LibrarySummaryDTO summary = spotifyService.getLibrarySummary(user);
+            return ResponseEntity.ok(Map.of(
+                    "likedTracks", likedTracksPlaylist(user, summary),
+                    "topTracks", topTracksPlaylist(user, summary, 50)
+            ));
+        } catch (IllegalStateException e) {
+            logger.error("Authentication error in getLibrarySummary", e);
+            return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Failed to fetch library summary", e);
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to fetch library summary: " + e.getMessage()));
+        }
+    }
+
+    private PlaylistDTO likedTracksPlaylist(User user, LibrarySummaryDTO summary) {
+        return new PlaylistDTO(
+                "liked-tracks",
+                "Músicas curtidas",
+                "Coleção com todas as músicas que você favoritou no Spotify.",
+                summary.getLikedTracks(),
+                null,
+                user.getDisplayName()
+        );
+    }
+
+    private PlaylistDTO topTracksPlaylist(User user, LibrarySummaryDTO summary, int limit) {
+        return new PlaylistDTO(
+                "top-tracks",
+                "Top músicas",
+                "As músicas que você mais ouviu nos últimos tempos.",
+                Math.min(limit, summary.getTopTracks()),
+                null,
+                user.getDisplayName()
+        );
+    }
+
     @GetMapping("/search")
     public ResponseEntity<?> searchPlaylists(@RequestParam String query, Authentication authentication) {
         logger.info("searchPlaylists called for user: {}", authentication.getName());
@@ -137,12 +175,12 @@ public class PlaylistController {
         try {
             User user = getUserFromAuth(authentication);
             if ("liked-tracks".equals(playlistId)) {
-                return ResponseEntity.ok(spotifyService.getLikedTracks(user));
+                return ResponseEntity.ok(TrackDTO.fromTracks(spotifyService.getLikedTracks(user)));
             }
             if ("top-tracks".equals(playlistId)) {
-                return ResponseEntity.ok(spotifyService.getTopTracks(user, 50));
+                return ResponseEntity.ok(TrackDTO.fromTracks(spotifyService.getTopTracks(user, 50)));
             }
-            return ResponseEntity.ok(spotifyService.getPlaylistTracks(user, playlistId));
+            return ResponseEntity.ok(TrackDTO.fromTracks(spotifyService.getPlaylistTracks(user, playlistId)));
         } catch (IllegalStateException e) {
             logger.error("Authentication error in getPlaylistTracks", e);
             return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
@@ -152,6 +190,53 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * Faixas em NDJSON (um objeto por linha), escritas à medida que cada página chega do
+     * Spotify. O cliente pode exibir as primeiras faixas enquanto o resto ainda carrega e o
+     * servidor só mantém uma página em memória por requisição.
+     */
+    @GetMapping("/{playlistId}/stream")
+    public ResponseEntity<?> streamPlaylistTracks(@PathVariable String playlistId, Authentication authentication) {
+        logger.info("streamPlaylistTracks called for user: {}", authentication.getName());
+        User user;
+        try {
+            user = getUserFromAuth(authentication);
+        } catch (IllegalStateException e) {
+            logger.error("Authentication error in streamPlaylistTracks", e);
+            return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = out -> {
+            SpotifyService.TrackPageConsumer writer = tracks -> writeTrackLines(out, tracks);
+            try {
+                if ("liked-tracks".equals(playlistId)) {
+                    spotifyService.streamLikedTracks(user, writer);
+                } else if ("top-tracks".equals(playlistId)) {
+                    writer.accept(spotifyService.getTopTracks(user, 50));
+                } else {
+                    spotifyService.streamPlaylistTracks(user, playlistId, writer);
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                // O status 200 já foi enviado; o erro vai como última linha do stream
+                logger.error("Failed to stream tracks for playlistId: {}", playlistId, e);
+                out.write(objectMapper.writeValueAsBytes(Map.of("error", "Failed to fetch playlist tracks: " + e.getMessage())));
+                out.write('\n');
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeTrackLines(OutputStream out, List<Track> tracks) throws IOException {
+        for (Track track : tracks) {
+            out.write(objectMapper.writeValueAsBytes(TrackDTO.from(track)));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
     @PostMapping("/create")
     public ResponseEntity<?> createPlaylist(@RequestBody CreatePlaylistRequestDTO request, Authentication authentication) {
         logger.info("createPlaylist called for user: {}", authentication.getName());
@@ -2,6 +2,8 @@ package com.spotifyweb.dto;
 
 import com.spotifyweb.entity.DownloadJob;
 
+import java.util.List;
+
 public class DownloadProgressDTO {
     private String jobId;
     private String playlistName;
@@ -12,18 +14,28 @@ public class DownloadProgressDTO {
     private String currentTrack;
     private Double progressPercentage;
     private String errorMessage;
+    // Bytes das faixas em andamento e das concluídas nesta execução; null quando não há progresso ao vivo
+    private Long downloadedBytes;
+    private Double bytesPerSecond;
+    private List<TrackProgressDTO> activeTracks;
 
     public DownloadProgressDTO() {}
 
     public DownloadProgressDTO(DownloadJob job) {
-        this.jobId = job.getJobId();
-        this.playlistName = job.getPlaylistName();
-        this.totalTracks = job.getTotalTracks();
-        this.completedTracks = job.getCompletedTracks();
-        this.failedTracks = job.getFailedTracks();
-        this.status = job.getStatus();
-        this.errorMessage = job.getErrorMessage();
-        this.currentTrack = job.getTrack();
+        this(job.getJobId(), job.getPlaylistName(), job.getTotalTracks(), job.getCompletedTracks(),
+                job.getFailedTracks(), job.getStatus(), job.getTrack(), job.getErrorMessage());
+    }
+
+    public DownloadProgressDTO(String jobId, String playlistName, Integer totalTracks, Integer completedTracks,
+                               Integer failedTracks, DownloadJob.JobStatus status, String currentTrack, String errorMessage) {
+        this.jobId = jobId;
+        this.playlistName = playlistName;
+        this.totalTracks = totalTracks;
+        this.completedTracks = completedTracks;
+        this.failedTracks = failedTracks;
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.currentTrack = currentTrack;
 
         int safeCompleted = this.completedTracks == null ? 0 : this.completedTracks;
         int safeTotal = this.totalTracks == null ? 0 : this.totalTracks;
@@ -107,4 +119,28 @@ public class DownloadProgressDTO {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public Long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public void setDownloadedBytes(Long downloadedBytes) {
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    public Double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Double bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public List<TrackProgressDTO> getActiveTracks() {
+        return activeTracks;
+    }
+
+    public void setActiveTracks(List<TrackProgressDTO> activeTracks) {
+        this.activeTracks = activeTracks;
+    }
 }
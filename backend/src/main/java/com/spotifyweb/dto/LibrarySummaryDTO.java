@@ -0,0 +1,33 @@
+package com.spotifyweb.dto;
+
+/**
+ * Totais da biblioteca do usuário, lidos do campo {@code total} de requisições com limit=1.
+ */
+public class LibrarySummaryDTO {
+    private Integer likedTracks;
+    private Integer topTracks;
+
+    public LibrarySummaryDTO() {}
+
+    public LibrarySummaryDTO(Integer likedTracks, Integer topTracks) {
+        this.likedTracks = likedTracks;
+        this.topTracks = topTracks;
+    }
+
+    // Getters and Setters
+    public Integer getLikedTracks() {
+        return likedTracks;
+    }
+
+    public void setLikedTracks(Integer likedTracks) {
+        this.likedTracks = likedTracks;
+    }
+
+    public Integer getTopTracks() {
+        return topTracks;
+    }
+
+    public void setTopTracks(Integer topTracks) {
+        this.topTracks = topTracks;
+    }
+}
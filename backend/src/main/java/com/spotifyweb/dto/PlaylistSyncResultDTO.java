@@ -0,0 +1,75 @@
+package com.spotifyweb.dto;
+
+public class PlaylistSyncResultDTO {
+
+    public enum SyncStatus {
+        UP_TO_DATE, QUEUED, ALREADY_RUNNING
+    }
+
+    private String playlistId;
+    private String snapshotId;
+    private SyncStatus status;
+    private String jobId;
+    private Integer addedTracks;
+    private Integer removedTracks;
+
+    public PlaylistSyncResultDTO() {}
+
+    public PlaylistSyncResultDTO(String playlistId, String snapshotId, SyncStatus status, String jobId, Integer addedTracks, Integer removedTracks) {
+        this.playlistId = playlistId;
+        this.snapshotId = snapshotId;
+        this.status = status;
+        this.jobId = jobId;
+        this.addedTracks = addedTracks;
+        this.removedTracks = removedTracks;
+    }
+
+    // Getters and Setters
+    public String getPlaylistId() {
+        return playlistId;
+    }
+
+    public void setPlaylistId(String playlistId) {
+        this.playlistId = playlistId;
+    }
+
+    public String getSnapshotId() {
+        return snapshotId;
+    }
+
+    public void setSnapshotId(String snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+
+    public SyncStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SyncStatus status) {
+        this.status = status;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getAddedTracks() {
+        return addedTracks;
+    }
+
+    public void setAddedTracks(Integer addedTracks) {
+        this.addedTracks = addedTracks;
+    }
+
+    public Integer getRemovedTracks() {
+        return removedTracks;
+    }
+
+    public void setRemovedTracks(Integer removedTracks) {
+        this.removedTracks = removedTracks;
+    }
+}
@@ -0,0 +1,109 @@
+package com.spotifyweb.dto;
+
+import se.michaelthelin.spotify.model_objects.specification.AlbumSimplified;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Image;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projeção enxuta de uma faixa do Spotify com só o que o frontend exibe. Substitui o
+ * {@link Track} completo (mercados, ids externos, todas as imagens, álbum aninhado).
+ */
+public class TrackDTO extends AlbumDetailDTO.TrackDTO {
+    private static final int THUMBNAIL_MIN_WIDTH = 64;
+
+    private String albumId;
+    private String albumName;
+    private String imageUrl;
+
+    public TrackDTO() {}
+
+    public TrackDTO(String id, String name, long durationMs, String artists, String albumId, String albumName, String imageUrl) {
+        super(id, name, durationMs, artists);
+        this.albumId = albumId;
+        this.albumName = albumName;
+        this.imageUrl = imageUrl;
+    }
+
+    public static TrackDTO from(Track track) {
+        AlbumSimplified album = track.getAlbum();
+        return new TrackDTO(
+                track.getId(),
+                track.getName(),
+                track.getDurationMs() != null ? track.getDurationMs() : 0,
+                joinArtists(track.getArtists()),
+                album != null ? album.getId() : null,
+                album != null ? album.getName() : null,
+                album != null ? pickImage(album.getImages()) : null
+        );
+    }
+
+    public static List<TrackDTO> fromTracks(List<Track> tracks) {
+        List<TrackDTO> result = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            if (track != null) {
+                result.add(from(track));
+            }
+        }
+        return result;
+    }
+
+    public static String joinArtists(ArtistSimplified[] artists) {
+        if (artists == null || artists.length == 0) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (ArtistSimplified artist : artists) {
+            if (artist == null || artist.getName() == null) continue;
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(artist.getName());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * O Spotify lista as imagens da maior para a menor; a lista só exibe miniaturas, então
+     * escolhe a menor que ainda tenha pelo menos 64px de largura.
+     */
+    private static String pickImage(Image[] images) {
+        if (images == null || images.length == 0) {
+            return null;
+        }
+        for (int i = images.length - 1; i >= 0; i--) {
+            Image image = images[i];
+            if (image != null && (image.getWidth() == null || image.getWidth() >= THUMBNAIL_MIN_WIDTH)) {
+                return image.getUrl();
+            }
+        }
+        return images[0] != null ? images[0].getUrl() : null;
+    }
+
+    public String getAlbumId() {
+        return albumId;
+    }
+
+    public void setAlbumId(String albumId) {
+        this.albumId = albumId;
+    }
+
+    public String getAlbumName() {
+        return albumName;
+    }
+
+    public void setAlbumName(String albumName) {
+        this.albumName = albumName;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spotifyweb.dto;
+
+public class TrackProgressDTO {
+    private Integer position;
+    private String trackName;
+    private String artistName;
+    private Long downloadedBytes;
+    private Long totalBytes;
+    private Double progressPercentage;
+    private Double bytesPerSecond;
+    private Long etaSeconds;
+
+    public TrackProgressDTO() {}
+
+    public TrackProgressDTO(Integer position, String trackName, String artistName, Long downloadedBytes,
+                            Long totalBytes, Double progressPercentage, Double bytesPerSecond, Long etaSeconds) {
+        this.position = position;
+        this.trackName = trackName;
+        this.artistName = artistName;
+        this.downloadedBytes = downloadedBytes;
+        this.totalBytes = totalBytes;
+        this.progressPercentage = progressPercentage;
+        this.bytesPerSecond = bytesPerSecond;
+        this.etaSeconds = etaSeconds;
+    }
+
+    // Getters and Setters
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public String getTrackName() {
+        return trackName;
+    }
+
+    public void setTrackName(String trackName) {
+        this.trackName = trackName;
+    }
+
+    public String getArtistName() {
+        return artistName;
+    }
+
+    public void setArtistName(String artistName) {
+        this.artistName = artistName;
+    }
+
+    public Long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public void setDownloadedBytes(Long downloadedBytes) {
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(Long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Double getProgressPercentage() {
+        return progressPercentage;
+    }
+
+    public void setProgressPercentage(Double progressPercentage) {
+        this.progressPercentage = progressPercentage;
+    }
+
+    public Double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Double bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+}
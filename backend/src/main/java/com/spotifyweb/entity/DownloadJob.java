@@ -33,6 +33,10 @@ public class DownloadJob {
     @Column(name = "status")
     private JobStatus status = JobStatus.PENDING;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private JobPriority priority = JobPriority.NORMAL;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -58,6 +62,11 @@ public class DownloadJob {
         PENDING, IN_PROGRESS, DOWNLOADING, COMPLETED, FAILED, CANCELLED
     }
 
+    // Ordem de declaração = ordem de atendimento dentro da fila de cada usuário
+    public enum JobPriority {
+        HIGH, NORMAL, LOW
+    }
+
     // Constructors
     public DownloadJob() {}
 
@@ -134,6 +143,14 @@ public class DownloadJob {
         this.status = status;
     }
 
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(JobPriority priority) {
+        this.priority = priority;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,191 @@
+package com.spotifyweb.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Uma faixa dentro de um {@link DownloadJob}. Persistir as faixas permite retomar
+ * jobs interrompidos sem consultar o Spotify novamente.
+ */
+@Entity
+@Table(name = "download_tracks", indexes = {
+        @Index(name = "idx_download_tracks_job_status", columnList = "job_id, status"),
+        @Index(name = "idx_download_tracks_lease", columnList = "status, lease_expires_at")
+})
+public class DownloadTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private String jobId;
+
+    @Column(name = "position", nullable = false)
+    private Integer position;
+
+    @Column(name = "spotify_track_id")
+    private String spotifyTrackId;
+
+    @Column(name = "track_name", nullable = false)
+    private String trackName;
+
+    @Column(name = "artist_name")
+    private String artistName;
+
+    @Column(name = "duration_ms")
+    private Integer durationMs;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TrackStatus status = TrackStatus.PENDING;
+
+    @Column(name = "file_path")
+    private String filePath;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Lease do modo distribuído: nó que está baixando a faixa e até quando a reserva vale
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "attempts")
+    private Integer attempts = 0;
+
+    public enum TrackStatus {
+        PENDING, IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    // Constructors
+    public DownloadTrack() {}
+
+    public DownloadTrack(String jobId, Integer position, String spotifyTrackId, String trackName, String artistName, Integer durationMs) {
+        this.jobId = jobId;
+        this.position = position;
+        this.spotifyTrackId = spotifyTrackId;
+        this.trackName = trackName;
+        this.artistName = artistName;
+        this.durationMs = durationMs;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public String getSpotifyTrackId() {
+        return spotifyTrackId;
+    }
+
+    public void setSpotifyTrackId(String spotifyTrackId) {
+        this.spotifyTrackId = spotifyTrackId;
+    }
+
+    public String getTrackName() {
+        return trackName;
+    }
+
+    public void setTrackName(String trackName) {
+        this.trackName = trackName;
+    }
+
+    public String getArtistName() {
+        return artistName;
+    }
+
+    public void setArtistName(String artistName) {
+        this.artistName = artistName;
+    }
+
+    public Integer getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Integer durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public TrackStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TrackStatus status) {
+        this.status = status;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+}
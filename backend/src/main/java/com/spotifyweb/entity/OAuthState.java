@@ -0,0 +1,70 @@
+package com.spotifyweb.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * State pendente do fluxo OAuth, compartilhado entre instâncias quando {@code auth.state-store=jdbc}.
+ */
+@Entity
+@Table(name = "oauth_states", indexes = {
+        @Index(name = "idx_oauth_states_expires_at", columnList = "expires_at")
+})
+public class OAuthState {
+
+    @Id
+    @Column(name = "state", length = 64)
+    private String state;
+
+    @Column(name = "client_id", nullable = false)
+    private String clientId;
+
+    @Column(name = "client_secret", nullable = false)
+    private String clientSecret;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public OAuthState() {}
+
+    public OAuthState(String state, String clientId, String clientSecret, LocalDateTime expiresAt) {
+        this.state = state;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,107 @@
+package com.spotifyweb.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Último estado sincronizado de uma playlist para um usuário: o snapshot_id visto no Spotify
+ * e as faixas já baixadas (id da faixa no Spotify -> arquivo em disco).
+ */
+@Entity
+@Table(name = "playlist_sync_states", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_playlist_sync_user_playlist", columnNames = {"user_id", "playlist_id"})
+})
+public class PlaylistSyncState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "playlist_id", nullable = false)
+    private String playlistId;
+
+    @Column(name = "snapshot_id")
+    private String snapshotId;
+
+    @Column(name = "last_job_id")
+    private String lastJobId;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "playlist_sync_tracks", joinColumns = @JoinColumn(name = "sync_state_id"))
+    @MapKeyColumn(name = "spotify_track_id")
+    @Column(name = "file_path", length = 1000)
+    private Map<String, String> tracks = new HashMap<>();
+
+    // Constructors
+    public PlaylistSyncState() {}
+
+    public PlaylistSyncState(Long userId, String playlistId) {
+        this.userId = userId;
+        this.playlistId = playlistId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getPlaylistId() {
+        return playlistId;
+    }
+
+    public void setPlaylistId(String playlistId) {
+        this.playlistId = playlistId;
+    }
+
+    public String getSnapshotId() {
+        return snapshotId;
+    }
+
+    public void setSnapshotId(String snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+
+    public String getLastJobId() {
+        return lastJobId;
+    }
+
+    public void setLastJobId(String lastJobId) {
+        this.lastJobId = lastJobId;
+    }
+
+    public LocalDateTime getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(LocalDateTime lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    public Map<String, String> getTracks() {
+        return tracks;
+    }
+
+    public void setTracks(Map<String, String> tracks) {
+        this.tracks = tracks;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spotifyweb.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Vídeo do YouTube escolhido para uma faixa do Spotify. Downloads seguintes da mesma faixa
+ * (de qualquer usuário ou job) baixam direto esse vídeo, sem nova busca.
+ */
+@Entity
+@Table(name = "track_resolutions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_track_resolutions_spotify_track", columnNames = {"spotify_track_id"})
+})
+public class TrackResolution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "spotify_track_id", nullable = false)
+    private String spotifyTrackId;
+
+    @Column(name = "video_id", nullable = false)
+    private String videoId;
+
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+
+    @Column(name = "resolved_at", nullable = false)
+    private LocalDateTime resolvedAt = LocalDateTime.now();
+
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+
+    // Constructors
+    public TrackResolution() {}
+
+    public TrackResolution(String spotifyTrackId, String videoId) {
+        this.spotifyTrackId = spotifyTrackId;
+        this.videoId = videoId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSpotifyTrackId() {
+        return spotifyTrackId;
+    }
+
+    public void setSpotifyTrackId(String spotifyTrackId) {
+        this.spotifyTrackId = spotifyTrackId;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public LocalDateTime getResolvedAt() {
+        return resolvedAt;
+    }
+
+    public void setResolvedAt(LocalDateTime resolvedAt) {
+        this.resolvedAt = resolvedAt;
+    }
+
+    public LocalDateTime getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(LocalDateTime lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+}
@@ -30,6 +30,14 @@ public class User {
     @Column(length = 1000)
     private String refreshToken;
 
+    // Validade do accessToken atual, usada para renová-lo antes de expirar
+    private LocalDateTime tokenExpiresAt;
+
+    // Credenciais do app informadas no login; o refresh do Spotify exige as mesmas
+    private String clientId;
+
+    private String clientSecret;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -112,6 +120,30 @@ public class User {
         this.updatedAt = LocalDateTime.now();
     }
 
+    public LocalDateTime getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    public void setTokenExpiresAt(LocalDateTime tokenExpiresAt) {
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -2,8 +2,14 @@ package com.spotifyweb.repository;
 
 import com.spotifyweb.entity.DownloadJob;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +27,55 @@ public interface DownloadJobRepository extends JpaRepository<DownloadJob, Long>
     List<DownloadJob> findByUserIdAndStatusInOrderByCreatedAtDesc(Long userId, List<DownloadJob.JobStatus> statuses);
 
     Optional<DownloadJob> findByJobIdAndUserId(String jobId, Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Aplica incrementos (não valores absolutos) aos contadores, para que flushes
+     * concorrentes do mesmo job nunca sobrescrevam um ao outro.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadJob j SET " +
+            "j.completedTracks = COALESCE(j.completedTracks, 0) + :completedDelta, " +
+            "j.failedTracks = COALESCE(j.failedTracks, 0) + :failedDelta, " +
+            "j.track = :track, j.artist = :artist, j.path = :path, j.errorMessage = :errorMessage " +
+            "WHERE j.jobId = :jobId")
+    int applyProgress(@Param("jobId") String jobId,
+                      @Param("completedDelta") int completedDelta,
+                      @Param("failedDelta") int failedDelta,
+                      @Param("track") String track,
+                      @Param("artist") String artist,
+                      @Param("path") String path,
+                      @Param("errorMessage") String errorMessage);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadJob j SET j.status = :status, j.completedAt = :completedAt, j.track = null, " +
+            "j.errorMessage = COALESCE(:errorMessage, j.errorMessage) WHERE j.jobId = :jobId")
+    int markFinished(@Param("jobId") String jobId,
+                     @Param("status") DownloadJob.JobStatus status,
+                     @Param("completedAt") LocalDateTime completedAt,
+                     @Param("errorMessage") String errorMessage);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadJob j SET j.status = :status WHERE j.jobId IN :jobIds AND j.status = :expected")
+    int transitionStatus(@Param("jobIds") Collection<String> jobIds,
+                         @Param("expected") DownloadJob.JobStatus expected,
+                         @Param("status") DownloadJob.JobStatus status);
+
+    /**
+     * Finaliza o job com os contadores recalculados a partir das faixas. A condição sobre o
+     * status garante que, entre vários nós, só um finaliza (e notifica) o job.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadJob j SET j.status = :status, j.completedAt = :completedAt, j.track = null, " +
+            "j.completedTracks = :completed, j.failedTracks = :failed " +
+            "WHERE j.jobId = :jobId AND j.status IN :activeStatuses")
+    int finishIfActive(@Param("jobId") String jobId,
+                       @Param("activeStatuses") Collection<DownloadJob.JobStatus> activeStatuses,
+                       @Param("status") DownloadJob.JobStatus status,
+                       @Param("completedAt") LocalDateTime completedAt,
+                       @Param("completed") int completed,
+                       @Param("failed") int failed);
+}
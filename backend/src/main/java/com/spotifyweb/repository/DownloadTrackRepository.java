@@ -0,0 +1,115 @@
+package com.spotifyweb.repository;
+
+import com.spotifyweb.entity.DownloadTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DownloadTrackRepository extends JpaRepository<DownloadTrack, Long> {
+
+    List<DownloadTrack> findByJobIdOrderByPosition(String jobId);
+
+    long countByJobIdAndStatus(String jobId, DownloadTrack.TrackStatus status);
+
+    long countByJobIdAndStatusIn(String jobId, Collection<DownloadTrack.TrackStatus> statuses);
+
+    /**
+     * Faixas livres (ou com lease vencido) de jobs ativos. Deve rodar dentro de uma transação: as
+     * linhas ficam travadas até o commit e o SKIP LOCKED faz cada nó pegar faixas diferentes sem
+     * esperar pelos outros.
+     *
+     * Dentro de cada prioridade as faixas se alternam entre usuários: a vez de cada faixa é a sua
+     * posição na fila do usuário somada aos leases que ele já tem abertos em todos os nós, então
+     * um job grande não segura os outros usuários. As condições de t.status se repetem na consulta
+     * externa para que o Postgres as confira de novo ao travar a linha.
+     */
+    @Query(value = "WITH open_leases AS (" +
+            "  SELECT j.user_id, COUNT(*) AS leased FROM download_tracks t JOIN download_jobs j ON j.job_id = t.job_id " +
+            "  WHERE t.status = 'IN_PROGRESS' AND t.lease_expires_at >= :now GROUP BY j.user_id" +
+            "), ranked AS (" +
+            "  SELECT t.id, j.created_at, t.position, " +
+            "    CASE j.priority WHEN 'HIGH' THEN 0 WHEN 'NORMAL' THEN 1 ELSE 2 END AS priority_rank, " +
+            "    COALESCE(o.leased, 0) + ROW_NUMBER() OVER (PARTITION BY j.user_id " +
+            "      ORDER BY CASE j.priority WHEN 'HIGH' THEN 0 WHEN 'NORMAL' THEN 1 ELSE 2 END, j.created_at, t.position) AS turn " +
+            "  FROM download_tracks t JOIN download_jobs j ON j.job_id = t.job_id " +
+            "  LEFT JOIN open_leases o ON o.user_id = j.user_id " +
+            "  WHERE j.status IN (:jobStatuses) " +
+            "  AND (t.status = 'PENDING' OR (t.status = 'IN_PROGRESS' " +
+            "  AND (t.lease_expires_at IS NULL OR t.lease_expires_at < :now))) " +
+            "  AND COALESCE(t.attempts, 0) < :maxAttempts" +
+            ") " +
+            "SELECT t.* FROM download_tracks t JOIN ranked r ON r.id = t.id " +
+            "WHERE (t.status = 'PENDING' OR (t.status = 'IN_PROGRESS' " +
+            "AND (t.lease_expires_at IS NULL OR t.lease_expires_at < :now))) " +
+            "ORDER BY r.priority_rank, r.turn, r.created_at, r.position " +
+            "LIMIT :limit FOR UPDATE OF t SKIP LOCKED", nativeQuery = true)
+    List<DownloadTrack> lockClaimable(@Param("now") LocalDateTime now,
+                                      @Param("jobStatuses") Collection<String> jobStatuses,
+                                      @Param("maxAttempts") int maxAttempts,
+                                      @Param("limit") int limit);
+
+    /**
+     * Faixas cujo lease venceu depois de esgotar as tentativas (o nó caiu no meio de todas elas).
+     */
+    @Query(value = "SELECT t.* FROM download_tracks t " +
+            "WHERE t.status = 'IN_PROGRESS' AND t.lease_expires_at < :now AND COALESCE(t.attempts, 0) >= :maxAttempts " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<DownloadTrack> lockExhausted(@Param("now") LocalDateTime now,
+                                      @Param("maxAttempts") int maxAttempts,
+                                      @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadTrack t SET t.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE t.leaseOwner = :owner AND t.status = :status")
+    int extendLeases(@Param("owner") String owner,
+                     @Param("status") DownloadTrack.TrackStatus status,
+                     @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Conclui a faixa só se o lease ainda for deste nó; 0 significa que outro nó a assumiu.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadTrack t SET t.status = :status, t.filePath = :filePath, t.errorMessage = :errorMessage, " +
+            "t.leaseOwner = null, t.leaseExpiresAt = null, t.updatedAt = :updatedAt " +
+            "WHERE t.id = :id AND t.leaseOwner = :owner AND t.status = :leasedStatus")
+    int completeLease(@Param("id") Long id,
+                      @Param("owner") String owner,
+                      @Param("leasedStatus") DownloadTrack.TrackStatus leasedStatus,
+                      @Param("status") DownloadTrack.TrackStatus status,
+                      @Param("filePath") String filePath,
+                      @Param("errorMessage") String errorMessage,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadTrack t SET t.status = :pendingStatus, t.leaseOwner = null, t.leaseExpiresAt = null " +
+            "WHERE t.leaseOwner = :owner AND t.status = :leasedStatus")
+    int releaseLeases(@Param("owner") String owner,
+                      @Param("leasedStatus") DownloadTrack.TrackStatus leasedStatus,
+                      @Param("pendingStatus") DownloadTrack.TrackStatus pendingStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadTrack t SET t.status = :status, t.errorMessage = null, t.updatedAt = :updatedAt WHERE t.id IN :ids")
+    int markStatus(@Param("ids") Collection<Long> ids,
+                   @Param("status") DownloadTrack.TrackStatus status,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DownloadTrack t SET t.status = :status, t.errorMessage = :errorMessage, t.updatedAt = :updatedAt WHERE t.id = :id")
+    int markStatus(@Param("id") Long id,
+                   @Param("status") DownloadTrack.TrackStatus status,
+                   @Param("errorMessage") String errorMessage,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,32 @@
+package com.spotifyweb.repository;
+
+import com.spotifyweb.entity.OAuthState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OAuthStateRepository extends JpaRepository<OAuthState, String> {
+
+    // A remoção é o que garante uso único: só a instância que apagou a linha pode usá-la
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OAuthState s WHERE s.state = :state")
+    int deleteByStateId(@Param("state") String state);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OAuthState s WHERE s.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM oauth_states WHERE state IN " +
+            "(SELECT state FROM oauth_states ORDER BY expires_at ASC LIMIT :count)", nativeQuery = true)
+    int deleteOldest(@Param("count") int count);
+}
@@ -0,0 +1,13 @@
+package com.spotifyweb.repository;
+
+import com.spotifyweb.entity.PlaylistSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlaylistSyncStateRepository extends JpaRepository<PlaylistSyncState, Long> {
+
+    Optional<PlaylistSyncState> findByUserIdAndPlaylistId(Long userId, String playlistId);
+}
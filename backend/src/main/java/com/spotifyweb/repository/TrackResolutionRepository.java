@@ -0,0 +1,40 @@
+package com.spotifyweb.repository;
+
+import com.spotifyweb.entity.TrackResolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface TrackResolutionRepository extends JpaRepository<TrackResolution, Long> {
+
+    Optional<TrackResolution> findBySpotifyTrackId(String spotifyTrackId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE TrackResolution r SET r.hitCount = r.hitCount + 1, r.lastUsedAt = :now WHERE r.id = :id")
+    int registerHit(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Upsert: duas faixas resolvidas ao mesmo tempo (por nós diferentes) não falham na unique
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO track_resolutions (spotify_track_id, video_id, hit_count, resolved_at, last_used_at) " +
+            "VALUES (:spotifyTrackId, :videoId, 0, :now, :now) " +
+            "ON CONFLICT (spotify_track_id) DO UPDATE SET video_id = EXCLUDED.video_id, hit_count = 0, " +
+            "resolved_at = EXCLUDED.resolved_at, last_used_at = EXCLUDED.last_used_at", nativeQuery = true)
+    int upsert(@Param("spotifyTrackId") String spotifyTrackId,
+               @Param("videoId") String videoId,
+               @Param("now") LocalDateTime now);
+
+    // Só apaga se ainda for o vídeo que falhou (outro nó pode ter acabado de resolver de novo)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TrackResolution r WHERE r.spotifyTrackId = :spotifyTrackId AND r.videoId = :videoId")
+    int invalidate(@Param("spotifyTrackId") String spotifyTrackId, @Param("videoId") String videoId);
+}
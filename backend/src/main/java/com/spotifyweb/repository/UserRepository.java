@@ -2,8 +2,13 @@ package com.spotifyweb.repository;
 
 import com.spotifyweb.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +21,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsBySpotifyId(String spotifyId);
 
     boolean existsByEmail(String email);
+
+    // Grava só as colunas de token: não regrava o resto da linha nem a coleção de roles
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accessToken = :accessToken, " +
+            "u.refreshToken = COALESCE(:refreshToken, u.refreshToken), " +
+            "u.tokenExpiresAt = :expiresAt, u.updatedAt = :updatedAt WHERE u.id = :id")
+    int updateTokens(@Param("id") Long id,
+                     @Param("accessToken") String accessToken,
+                     @Param("refreshToken") String refreshToken,
+                     @Param("expiresAt") LocalDateTime expiresAt,
+                     @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
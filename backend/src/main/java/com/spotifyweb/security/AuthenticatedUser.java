@@ -0,0 +1,69 @@
+package com.spotifyweb.security;
+
+import com.spotifyweb.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal da requisição autenticada. Carrega a entidade {@link User} já resolvida pelo
+ * filtro JWT, para que os controllers não precisem consultar a tabela users de novo.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final User user;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(User user) {
+        this.user = user;
+        this.authorities = user.getRoles().stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Long getUserId() {
+        return user.getId();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return "";
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getSpotifyId();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+package com.spotifyweb.security;
+
+import com.spotifyweb.dto.SpotifyConfigDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * States em memória, agrupados em baldes pelo instante de expiração: a limpeza descarta baldes
+ * inteiros já vencidos, sem percorrer cada entrada. Acima de {@code auth.state-max-entries}
+ * os states mais antigos são descartados primeiro. Só serve para uma instância do backend.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.state-store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOAuthStateStore implements OAuthStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryOAuthStateStore.class);
+
+    private final Map<String, PendingState> states = new HashMap<>();
+    private final TreeMap<Long, Set<String>> buckets = new TreeMap<>();
+
+    @Value("${auth.state-ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${auth.state-bucket-ms:60000}")
+    private long bucketMs;
+
+    @Value("${auth.state-max-entries:10000}")
+    private int maxEntries;
+
+    @Override
+    public synchronized void put(String state, SpotifyConfigDTO config) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        while (states.size() >= maxEntries && !buckets.isEmpty()) {
+            evictOldest();
+        }
+        long expiresAt = now + ttlMs;
+        long bucket = Math.floorDiv(expiresAt, bucketMs);
+        states.put(state, new PendingState(config, expiresAt));
+        buckets.computeIfAbsent(bucket, key -> new HashSet<>()).add(state);
+    }
+
+    @Override
+    public synchronized Optional<SpotifyConfigDTO> consume(String state) {
+        PendingState pending = states.remove(state);
+        if (pending == null) {
+            return Optional.empty();
+        }
+        Set<String> bucket = buckets.get(Math.floorDiv(pending.expiresAt, bucketMs));
+        if (bucket != null) {
+            bucket.remove(state);
+        }
+        if (pending.expiresAt <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(pending.config);
+    }
+
+    @Override
+    public synchronized long size() {
+        return states.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.state-bucket-ms:60000}")
+    public synchronized void cleanUp() {
+        int before = states.size();
+        evictExpired(System.currentTimeMillis());
+        int removed = before - states.size();
+        if (removed > 0) {
+            logger.debug("Evicted {} expired OAuth states", removed);
+        }
+    }
+
+    // Baldes cujo fim já passou só contêm states vencidos
+    private void evictExpired(long now) {
+        long currentBucket = Math.floorDiv(now, bucketMs);
+        Iterator<Map.Entry<Long, Set<String>>> iterator = buckets.headMap(currentBucket, false).entrySet().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().getValue().forEach(states::remove);
+            iterator.remove();
+        }
+    }
+
+    private void evictOldest() {
+        Map.Entry<Long, Set<String>> oldest = buckets.firstEntry();
+        Iterator<String> iterator = oldest.getValue().iterator();
+        if (iterator.hasNext()) {
+            states.remove(iterator.next());
+            iterator.remove();
+        }
+        if (oldest.getValue().isEmpty()) {
+            buckets.remove(oldest.getKey());
+        }
+    }
+
+    private static class PendingState {
+        private final SpotifyConfigDTO config;
+        private final long expiresAt;
+
+        private PendingState(SpotifyConfigDTO config, long expiresAt) {
+            this.config = config;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.spotifyweb.security;
+
+import com.spotifyweb.dto.SpotifyConfigDTO;
+import com.spotifyweb.entity.OAuthState;
+import com.spotifyweb.repository.OAuthStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * States gravados na tabela {@code oauth_states}, para que o callback funcione mesmo quando cai
+ * em outra instância atrás do balanceador. Linhas vencidas são apagadas periodicamente.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.state-store", havingValue = "jdbc")
+public class JdbcOAuthStateStore implements OAuthStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcOAuthStateStore.class);
+
+    @Autowired
+    private OAuthStateRepository oauthStateRepository;
+
+    @Value("${auth.state-ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${auth.state-max-entries:10000}")
+    private int maxEntries;
+
+    @Override
+    public void put(String state, SpotifyConfigDTO config) {
+        LocalDateTime now = LocalDateTime.now();
+        long pending = oauthStateRepository.count();
+        if (pending >= maxEntries) {
+            oauthStateRepository.deleteExpired(now);
+            pending = oauthStateRepository.count();
+            if (pending >= maxEntries) {
+                oauthStateRepository.deleteOldest((int) (pending - maxEntries + 1));
+            }
+        }
+        oauthStateRepository.save(new OAuthState(state, config.getClientId(), config.getClientSecret(),
+                now.plusNanos(ttlMs * 1_000_000L)));
+    }
+
+    @Override
+    public Optional<SpotifyConfigDTO> consume(String state) {
+        Optional<OAuthState> stored = oauthStateRepository.findById(state);
+        if (stored.isEmpty() || oauthStateRepository.deleteByStateId(state) == 0) {
+            return Optional.empty();
+        }
+        OAuthState oauthState = stored.get();
+        if (!oauthState.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(new SpotifyConfigDTO(oauthState.getClientId(), oauthState.getClientSecret()));
+    }
+
+    @Override
+    public long size() {
+        return oauthStateRepository.count();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.state-cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        int removed = oauthStateRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.debug("Deleted {} expired OAuth states", removed);
+        }
+    }
+}
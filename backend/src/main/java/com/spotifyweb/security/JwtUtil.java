@@ -1,7 +1,9 @@
 package com.spotifyweb.security;
 
+import com.spotifyweb.cache.TtlCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -20,6 +22,56 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private int jwtExpiration;
 
+    @Value("${jwt.verified-cache-size:1000}")
+    private long verifiedCacheSize;
+
+    @Value("${jwt.verified-cache-ttl-ms:60000}")
+    private long verifiedCacheTtlMs;
+
+    // Chave e parser são imutáveis e thread-safe: montados uma vez só
+    private Key signKey;
+    private JwtParser parser;
+
+    /**
+     * Tokens verificados recentemente. O mesmo token chega em toda requisição do usuário;
+     * a entrada nunca vive além da expiração do próprio token.
+     */
+    private TtlCache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+        verifiedTokens = new TtlCache<>("verifiedTokens", verifiedCacheSize, verifiedCacheTtlMs);
+    }
+
+    /**
+     * Verifica assinatura e expiração uma única vez e devolve subject, expiração e claims.
+     *
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public VerifiedToken parseAndValidate(String token) {
+        if (token == null || token.isBlank()) {
+            throw new MalformedJwtException("Empty JWT token");
+        }
+        VerifiedToken cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(token);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration(), claims);
+        long ttl = verifiedCacheTtlMs;
+        if (claims.getExpiration() != null) {
+            ttl = Math.min(ttl, claims.getExpiration().getTime() - System.currentTimeMillis());
+        }
+        verifiedTokens.put(token, verified, ttl);
+        return verified;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -29,20 +81,7 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return claimsResolver.apply(parseAndValidate(token).getClaims());
     }
 
     public String generateToken(String username) {
@@ -60,26 +99,25 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        try {
+            VerifiedToken verified = parseAndValidate(token);
+            return verified.getSubject() != null && verified.getSubject().equals(username);
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
+            parseAndValidate(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-
-    private Key getSignKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.spotifyweb.security;
+
+import com.spotifyweb.dto.SpotifyConfigDTO;
+
+import java.util.Optional;
+
+/**
+ * Guarda o parâmetro {@code state} do fluxo OAuth até o callback do Spotify, junto com as
+ * credenciais informadas em {@code /auth/authorize}. Cada state expira e só pode ser consumido
+ * uma vez. A implementação é escolhida por {@code auth.state-store} ({@code memory} ou {@code jdbc}).
+ */
+public interface OAuthStateStore {
+
+    void put(String state, SpotifyConfigDTO config);
+
+    /**
+     * Remove e devolve as credenciais do state; vazio se ele não existe, já foi usado ou expirou.
+     */
+    Optional<SpotifyConfigDTO> consume(String state);
+
+    /**
+     * Quantidade aproximada de states pendentes.
+     */
+    long size();
+}
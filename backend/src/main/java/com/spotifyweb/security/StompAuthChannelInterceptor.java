@@ -0,0 +1,49 @@
+package com.spotifyweb.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Autentica o CONNECT do STOMP com o mesmo JWT usado na API REST. O principal da sessão
+ * recebe o id interno do usuário, que é o destino usado em convertAndSendToUser.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new IllegalArgumentException("Missing JWT token on STOMP CONNECT");
+        }
+        String token = header.substring(7);
+        Long userId;
+        try {
+            userId = jwtUtil.parseAndValidate(token).getUserId();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid JWT token on STOMP CONNECT");
+        }
+        if (userId == null) {
+            throw new IllegalArgumentException("JWT token without userId claim");
+        }
+        accessor.setUser(new UsernamePasswordAuthenticationToken(String.valueOf(userId), null, List.of()));
+        return message;
+    }
+}
@@ -0,0 +1,45 @@
+package com.spotifyweb.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Resultado de uma única verificação de JWT: assinatura e expiração já conferidas.
+ */
+public class VerifiedToken {
+
+    private final String subject;
+    private final Date expiresAt;
+    private final Claims claims;
+
+    public VerifiedToken(String subject, Date expiresAt, Claims claims) {
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.claims = claims;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    /**
+     * Claim {@code userId} emitido no callback do OAuth (ausente em tokens antigos).
+     */
+    public Long getUserId() {
+        Object userId = claims.get("userId");
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.before(new Date());
+    }
+}
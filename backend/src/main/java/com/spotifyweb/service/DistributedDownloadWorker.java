@@ -0,0 +1,199 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.dto.DownloadProgressDTO;
+import com.spotifyweb.entity.DownloadJob;
+import com.spotifyweb.entity.DownloadTrack;
+import com.spotifyweb.repository.DownloadJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker do modo distribuído ({@code download.worker.mode=distributed}).
+ *
+ * Cada nó com {@code download.worker.enabled=true} busca faixas no banco via
+ * {@link DownloadWorkQueue} e as executa no {@link DownloadScheduler} local, que continua
+ * aplicando os limites globais e por usuário deste nó. Nós só de API deixam o worker
+ * desligado; a vazão de download cresce com o número de nós worker. Os arquivos vão para
+ * {@code download.base-path}, que precisa ser compartilhado entre os nós.
+ */
+@Component
+@ConditionalOnProperty(name = "download.worker.mode", havingValue = "distributed")
+public class DistributedDownloadWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedDownloadWorker.class);
+
+    @Autowired
+    private DownloadWorkQueue workQueue;
+
+    @Autowired
+    private DownloadScheduler downloadScheduler;
+
+    @Autowired
+    private DownloadService downloadService;
+
+    @Autowired
+    private DownloadJobRepository downloadJobRepository;
+
+    @Autowired
+    private DownloadProgressPublisher progressPublisher;
+
+    @Value("${download.worker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${download.worker.node-id:}")
+    private String nodeId;
+
+    // Faixas reservadas por este nó ao mesmo tempo (em download ou na fila local)
+    @Value("${download.worker.max-in-flight:${download.max-concurrent-tracks:4}}")
+    private int maxInFlight;
+
+    @Value("${download.worker.reap-batch-size:100}")
+    private int reapBatchSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "node";
+            }
+            nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        logger.info("Distributed download worker {} (enabled: {}, max in flight: {})", nodeId, enabled, maxInFlight);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+        if (!enabled) {
+            return;
+        }
+        try {
+            int released = workQueue.release(nodeId);
+            if (released > 0) {
+                logger.info("Released {} leased tracks on shutdown", released);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not release leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${download.worker.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled || stopping) {
+            return;
+        }
+        int capacity = maxInFlight - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+        List<DownloadTrack> claimed;
+        try {
+            claimed = workQueue.claim(nodeId, capacity);
+        } catch (Exception e) {
+            logger.warn("Failed to claim download tracks: {}", e.getMessage());
+            return;
+        }
+        Map<String, Optional<DownloadJob>> jobs = new HashMap<>();
+        for (DownloadTrack item : claimed) {
+            Optional<DownloadJob> job = jobs.computeIfAbsent(item.getJobId(), downloadJobRepository::findByJobId);
+            if (job.isEmpty()) {
+                continue;
+            }
+            inFlight.incrementAndGet();
+            downloadScheduler
+                    .submit(job.get().getUserId(), job.get().getPriority(), item.getJobId(), () -> runTrack(job.get(), item))
+                    .whenComplete((ignored, error) -> {
+                        inFlight.decrementAndGet();
+                        if (error != null) {
+                            logger.error("Unexpected error downloading track {}", item.getId(), error);
+                        }
+                    });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${download.worker.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (!enabled || inFlight.get() == 0) {
+            return;
+        }
+        try {
+            workQueue.heartbeat(nodeId);
+        } catch (Exception e) {
+            logger.warn("Lease heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${download.worker.reap-interval-ms:60000}")
+    public void reapExhaustedLeases() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<String> jobIds = workQueue.failExhausted(reapBatchSize);
+            jobIds.forEach(this::finishJobIfDone);
+        } catch (Exception e) {
+            logger.warn("Failed to reap expired leases: {}", e.getMessage());
+        }
+    }
+
+    private void runTrack(DownloadJob job, DownloadTrack item) {
+        String finalPath = downloadService.resolveTrackPath(job, item);
+        File parent = new File(finalPath).getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            logger.warn("Could not create directory {}", parent);
+        }
+
+        boolean success = true;
+        String errorMessage = null;
+        try {
+            downloadService.fetchTrack(item, finalPath);
+        } catch (InterruptedException e) {
+            // Nó desligando: o lease é devolvido no shutdown ou vence sozinho
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            logger.error("Falha ao baixar faixa {}", item.getTrackName(), e);
+            success = false;
+            errorMessage = downloadService.truncateErrorMessage(e.getMessage());
+        }
+
+        if (!workQueue.complete(item, nodeId, success, finalPath, errorMessage)) {
+            logger.warn("Lease for track {} of job {} was lost; result discarded", item.getId(), item.getJobId());
+            return;
+        }
+        downloadJobRepository.findByJobId(item.getJobId())
+                .ifPresent(current -> progressPublisher.publish(current.getUserId(), new DownloadProgressDTO(current)));
+        finishJobIfDone(item.getJobId());
+    }
+
+    private void finishJobIfDone(String jobId) {
+        workQueue.finishIfDone(jobId).ifPresent(status -> {
+            logger.info("Finalizado download do job {} ({})", jobId, status);
+            downloadJobRepository.findByJobId(jobId)
+                    .ifPresent(job -> progressPublisher.publishFinal(job.getUserId(), new DownloadProgressDTO(job)));
+        });
+    }
+}
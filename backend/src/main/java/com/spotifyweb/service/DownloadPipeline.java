@@ -0,0 +1,362 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.DownloadTrack;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Download em estágios explícitos, cada um com seu pool ({@code download.pipeline.enabled=true}):
+ *
+ * <ol>
+ *     <li>resolve: descobre o id do vídeo (resolução guardada ou {@link YouTubeMatcher});</li>
+ *     <li>fetch: baixa o áudio original, sem conversão;</li>
+ *     <li>postprocess: converte para mp3 com o ffmpeg e grava as tags.</li>
+ * </ol>
+ *
+ * Cada estágio aceita no máximo {@code threads + queue} itens; acima disso quem entrega espera,
+ * então a fila entre estágios é limitada. Como rede (resolve/fetch) e CPU (postprocess) ficam
+ * em pools separados, faixas diferentes avançam em estágios diferentes ao mesmo tempo. Os
+ * processos yt-dlp e ffmpeg de todos os estágios continuam sujeitos a {@link ProcessPermits}.
+ */
+@Component
+public class DownloadPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadPipeline.class);
+    private static final String YOUTUBE_WATCH_URL = "https://www.youtube.com/watch?v=";
+
+    @Autowired
+    private YtDlpRunner ytDlpRunner;
+
+    @Autowired
+    private TrackResolutionService trackResolutionService;
+
+    @Autowired
+    private YouTubeMatcher youTubeMatcher;
+
+    @Autowired
+    private ProcessPermits processPermits;
+
+    @Value("${download.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${download.pipeline.resolve-threads:4}")
+    private int resolveThreads;
+
+    @Value("${download.pipeline.fetch-threads:4}")
+    private int fetchThreads;
+
+    @Value("${download.pipeline.postprocess-threads:0}")
+    private int postprocessThreads;
+
+    @Value("${download.pipeline.queue-size:16}")
+    private int queueSize;
+
+    @Value("${download.pipeline.ffmpeg:ffmpeg}")
+    private String ffmpeg;
+
+    @Value("${download.quality:320}")
+    private int quality;
+
+    private Stage resolveStage;
+    private Stage fetchStage;
+    private Stage postprocessStage;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        int cpuThreads = postprocessThreads > 0 ? postprocessThreads : Runtime.getRuntime().availableProcessors();
+        resolveStage = new Stage("resolve", resolveThreads, queueSize);
+        fetchStage = new Stage("fetch", fetchThreads, queueSize);
+        postprocessStage = new Stage("postprocess", cpuThreads, queueSize);
+        logger.info("Download pipeline enabled: resolve={}, fetch={}, postprocess={} threads (queue {})",
+                resolveThreads, fetchThreads, cpuThreads, queueSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        resolveStage.executor.shutdownNow();
+        fetchStage.executor.shutdownNow();
+        postprocessStage.executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Leva a faixa pelos três estágios até {@code outputPath}. Sem resolução guardada (ou quando o
+     * vídeo guardado falha), o estágio resolve escolhe o vídeo com o {@link YouTubeMatcher}.
+     */
+    public void process(DownloadTrack item, String outputPath, YtDlpRunner.ProgressListener listener) throws IOException, InterruptedException {
+        String spotifyTrackId = item.getSpotifyTrackId();
+        Optional<String> knownVideoId = trackResolutionService.findVideoId(spotifyTrackId);
+
+        Path source = null;
+        if (knownVideoId.isPresent()) {
+            try {
+                source = fetch(knownVideoId.get(), outputPath, listener);
+            } catch (IOException e) {
+                logger.info("Vídeo {} falhou para a faixa {}; buscando de novo", knownVideoId.get(), item.getTrackName());
+                trackResolutionService.invalidate(spotifyTrackId, knownVideoId.get());
+            }
+        }
+        if (source == null) {
+            String videoId = await(resolveStage.submit(() -> youTubeMatcher.findBestMatch(item)));
+            source = fetch(videoId, outputPath, listener);
+            trackResolutionService.record(spotifyTrackId, videoId);
+        }
+        Path fetched = source;
+        await(postprocessStage.submit(() -> {
+            transcodeAndTag(fetched, Paths.get(outputPath), item);
+            return null;
+        }));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        if (enabled) {
+            snapshot.put("resolve", resolveStage.snapshot());
+            snapshot.put("fetch", fetchStage.snapshot());
+            snapshot.put("postprocess", postprocessStage.snapshot());
+        }
+        return snapshot;
+    }
+
+    private Path fetch(String videoId, String outputPath, YtDlpRunner.ProgressListener listener)
+            throws IOException, InterruptedException {
+        return await(fetchStage.submit(() -> fetchAudio(videoId, outputPath, listener)));
+    }
+
+    private Path fetchAudio(String videoId, String outputPath, YtDlpRunner.ProgressListener listener)
+            throws IOException, InterruptedException {
+        List<String> args = new ArrayList<>(List.of(
+                "-f", "bestaudio/best",
+                "--no-playlist",
+                "--match-filter", "!is_short",
+                "--print", "after_move:filepath",
+                "-o", outputPath + ".source.%(ext)s"
+        ));
+        args.addAll(YtDlpOutput.PROGRESS_ARGS);
+        args.add(YOUTUBE_WATCH_URL + videoId);
+        boolean fetched = false;
+        try {
+            YtDlpRunner.Result result = processPermits.run(() -> ytDlpRunner.run(args, listener));
+            if (result.getExitCode() != 0) {
+                throw new IOException("yt-dlp finalizou com código " + result.getExitCode() + ": " + result.getOutput());
+            }
+            String filePath = lastLine(result.getOutput());
+            if (filePath == null || !Files.exists(Paths.get(filePath))) {
+                throw new IOException("Arquivo baixado não encontrado para o vídeo " + videoId);
+            }
+            fetched = true;
+            return Paths.get(filePath);
+        } finally {
+            if (!fetched) {
+                deleteSources(Paths.get(outputPath));
+            }
+        }
+    }
+
+    /**
+     * Apaga o que um fetch que falhou deixou para trás ({@code <outputPath>.source.<ext>} e o
+     * {@code .part}); a extensão depende do formato escolhido pelo yt-dlp.
+     */
+    private void deleteSources(Path outputPath) {
+        Path dir = outputPath.toAbsolutePath().getParent();
+        String prefix = outputPath.getFileName() + ".source.";
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir,
+                path -> path.getFileName().toString().startsWith(prefix))) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete partial downloads for {}: {}", outputPath, e.getMessage());
+        }
+    }
+
+    private void transcodeAndTag(Path source, Path target, DownloadTrack item) throws IOException, InterruptedException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp.mp3");
+        try {
+            processPermits.run(() -> {
+                transcode(source, temp);
+                return null;
+            });
+            writeTags(temp, item);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void transcode(Path source, Path temp) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(
+                ffmpeg, "-y", "-nostdin", "-loglevel", "error",
+                "-i", source.toString(),
+                "-vn", "-codec:a", "libmp3lame", "-b:a", quality + "k",
+                temp.toString()
+        );
+        processBuilder.redirectErrorStream(true);
+        Process process = processBuilder.start();
+        YtDlpOutput output = new YtDlpOutput(null);
+        try (var inputStream = process.getInputStream()) {
+            output.consume(inputStream);
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("ffmpeg finalizou com código " + exitCode + ": " + output.tail());
+        }
+    }
+
+    private void writeTags(Path file, DownloadTrack item) {
+        try {
+            AudioFile audioFile = AudioFileIO.read(file.toFile());
+            Tag tag = audioFile.getTagOrCreateAndSetDefault();
+            tag.setField(FieldKey.TITLE, item.getTrackName());
+            if (item.getArtistName() != null) {
+                tag.setField(FieldKey.ARTIST, item.getArtistName());
+            }
+            audioFile.commit();
+        } catch (Exception e) {
+            // Tags são um extra: a faixa continua válida sem elas
+            logger.warn("Could not write tags to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private String lastLine(String output) {
+        if (output == null) {
+            return null;
+        }
+        String[] lines = output.trim().split("\\R");
+        return lines.length > 0 ? lines[lines.length - 1].trim() : null;
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Pool de um estágio. O semáforo limita itens em execução mais itens na fila.
+     */
+    private static final class Stage {
+        private final String name;
+        private final int threads;
+        private final ExecutorService executor;
+        private final Semaphore capacity;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final long startedAt = System.currentTimeMillis();
+
+        private Stage(String name, int threads, int queueSize) {
+            this.name = name;
+            this.threads = Math.max(1, threads);
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.capacity = new Semaphore(this.threads + Math.max(0, queueSize), true);
+        }
+
+        private <T> CompletableFuture<T> submit(Callable<T> work) throws InterruptedException {
+            long enqueuedAt = System.nanoTime();
+            capacity.acquire();
+            queued.incrementAndGet();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    long start = System.nanoTime();
+                    waitNanos.addAndGet(start - enqueuedAt);
+                    try {
+                        future.complete(work.call());
+                        completed.incrementAndGet();
+                    } catch (Throwable error) {
+                        failed.incrementAndGet();
+                        future.completeExceptionally(error);
+                    } finally {
+                        busyNanos.addAndGet(System.nanoTime() - start);
+                        active.decrementAndGet();
+                        capacity.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Pool encerrando: devolve a vaga que o item não vai usar
+                queued.decrementAndGet();
+                capacity.release();
+                throw e;
+            }
+            return future;
+        }
+
+        private Map<String, Object> snapshot() {
+            long done = completed.get() + failed.get();
+            double elapsedMinutes = Math.max(1, System.currentTimeMillis() - startedAt) / 60000.0;
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("threads", threads);
+            snapshot.put("active", active.get());
+            snapshot.put("queued", queued.get());
+            snapshot.put("completed", completed.get());
+            snapshot.put("failed", failed.get());
+            snapshot.put("avgBusyMs", done > 0 ? busyNanos.get() / done / 1_000_000 : 0);
+            snapshot.put("avgWaitMs", done > 0 ? waitNanos.get() / done / 1_000_000 : 0);
+            snapshot.put("perMinute", Math.round(done / elapsedMinutes * 10) / 10.0);
+            // Fração do tempo em que os threads do estágio estiveram ocupados
+            snapshot.put("utilization", Math.round(busyNanos.get() / 1_000_000.0
+                    / (System.currentTimeMillis() - startedAt) / threads * 100) / 100.0);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.dto.DownloadProgressDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envia o progresso dos jobs para /user/queue/downloads do dono do job.
+ *
+ * As mensagens de um mesmo job são limitadas a uma a cada {@code download.progress.push-interval-ms}:
+ * a mais recente que chegar dentro do intervalo fica guardada e sai na varredura seguinte,
+ * então o cliente sempre recebe o último estado. Estados terminais são enviados na hora e nada
+ * do mesmo job sai depois deles (os envios de cada job acontecem sob o lock do canal).
+ */
+@Component
+public class DownloadProgressPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadProgressPublisher.class);
+    public static final String USER_DESTINATION = "/queue/downloads";
+    private static final long FINALIZED_RETENTION_MS = 60_000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${download.progress.push-interval-ms:500}")
+    private long pushIntervalMs;
+
+    private final Map<String, JobChannel> channels = new ConcurrentHashMap<>();
+
+    public void publish(Long userId, DownloadProgressDTO progress) {
+        JobChannel channel = channels.computeIfAbsent(progress.getJobId(), id -> new JobChannel(userId));
+        synchronized (channel) {
+            if (channel.finalizedAt > 0) {
+                // Atualização atrasada de um job que já terminou
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - channel.lastSentAt >= pushIntervalMs) {
+                channel.lastSentAt = now;
+                channel.pending = null;
+                send(userId, progress);
+            } else {
+                channel.pending = progress;
+            }
+        }
+    }
+
+    /**
+     * Envia o estado terminal e descarta o que estiver pendente. O canal fica marcado como
+     * finalizado por {@link #FINALIZED_RETENTION_MS} para que nenhuma atualização em andamento
+     * saia depois do estado final.
+     */
+    public void publishFinal(Long userId, DownloadProgressDTO progress) {
+        JobChannel channel = channels.computeIfAbsent(progress.getJobId(), id -> new JobChannel(userId));
+        synchronized (channel) {
+            channel.pending = null;
+            channel.finalizedAt = System.currentTimeMillis();
+            send(userId, progress);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${download.progress.push-interval-ms:500}")
+    public void flushPending() {
+        long now = System.currentTimeMillis();
+        channels.values().removeIf(channel -> channel.finalizedAt > 0 && now - channel.finalizedAt > FINALIZED_RETENTION_MS);
+        for (JobChannel channel : channels.values()) {
+            synchronized (channel) {
+                if (channel.finalizedAt == 0 && channel.pending != null && now - channel.lastSentAt >= pushIntervalMs) {
+                    send(channel.userId, channel.pending);
+                    channel.pending = null;
+                    channel.lastSentAt = now;
+                }
+            }
+        }
+    }
+
+    private void send(Long userId, DownloadProgressDTO progress) {
+        try {
+            messagingTemplate.convertAndSendToUser(String.valueOf(userId), USER_DESTINATION, progress);
+        } catch (Exception e) {
+            logger.warn("Não foi possível publicar progresso do job {}: {}", progress.getJobId(), e.getMessage());
+        }
+    }
+
+    private static class JobChannel {
+        private final Long userId;
+        private long lastSentAt;
+        private DownloadProgressDTO pending;
+        private long finalizedAt;
+
+        private JobChannel(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.dto.DownloadProgressDTO;
+import com.spotifyweb.dto.TrackProgressDTO;
+import com.spotifyweb.entity.DownloadJob;
+import com.spotifyweb.entity.DownloadTrack;
+import com.spotifyweb.repository.DownloadJobRepository;
+import com.spotifyweb.repository.DownloadTrackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acumula o progresso dos jobs em memória e grava no banco em lotes.
+ *
+ * Cada faixa concluída só incrementa contadores locais; o UPDATE em download_jobs (com os
+ * deltas acumulados) e em download_tracks acontece a cada {@code download.progress.flush-every}
+ * mudanças, a cada {@code download.progress.flush-interval-ms} ou imediatamente quando o job
+ * chega a um estado terminal. Assim o volume de escrita por job fica limitado,
+ * independente de quantas faixas estejam em paralelo.
+ *
+ * O progresso em bytes das faixas em andamento (vindo da saída do yt-dlp) fica só em memória
+ * e vai para o cliente pelo {@link DownloadProgressPublisher}, sem gravar no banco.
+ */
+@Component
+public class DownloadProgressTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadProgressTracker.class);
+
+    @Autowired
+    private DownloadJobRepository downloadJobRepository;
+
+    @Autowired
+    private DownloadTrackRepository downloadTrackRepository;
+
+    @Autowired
+    private DownloadProgressPublisher progressPublisher;
+
+    @Value("${download.progress.flush-every:25}")
+    private int flushEvery;
+
+    @Value("${download.progress.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    private final Map<String, LiveProgress> live = new ConcurrentHashMap<>();
+
+    /**
+     * Passa a acompanhar o job. Os contadores iniciais devem refletir o que já está gravado.
+     */
+    public void register(DownloadJob job) {
+        LiveProgress progress = new LiveProgress(job);
+        live.put(job.getJobId(), progress);
+        publish(progress);
+    }
+
+    public void trackStarted(String jobId, DownloadTrack item, String path) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            return;
+        }
+        synchronized (progress) {
+            progress.currentTrack = item.getTrackName();
+            progress.currentArtist = item.getArtistName();
+            progress.currentPath = path;
+            progress.dirty = true;
+        }
+        publish(progress);
+    }
+
+    /**
+     * Atualiza os bytes baixados de uma faixa em andamento.
+     */
+    public void trackProgress(String jobId, DownloadTrack item, YtDlpRunner.Progress bytes) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            return;
+        }
+        synchronized (progress) {
+            progress.activeTracks.put(progress.key(item), new ActiveTrack(item, bytes));
+        }
+        publish(progress);
+    }
+
+    public void trackCompleted(String jobId, DownloadTrack item) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            return;
+        }
+        boolean flushNow;
+        synchronized (progress) {
+            ActiveTrack active = progress.activeTracks.remove(progress.key(item));
+            if (active != null && active.bytes.getDownloadedBytes() > 0) {
+                progress.completedBytes += active.bytes.getDownloadedBytes();
+            }
+            progress.completed++;
+            progress.pendingCompleted++;
+            if (item.getId() != null) {
+                progress.completedTrackIds.add(item.getId());
+            }
+            flushNow = progress.registerChange(flushEvery);
+        }
+        publish(progress);
+        if (flushNow) {
+            flush(progress);
+        }
+    }
+
+    public void trackFailed(String jobId, DownloadTrack item, String errorMessage) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            return;
+        }
+        boolean flushNow;
+        synchronized (progress) {
+            progress.activeTracks.remove(progress.key(item));
+            progress.failed++;
+            progress.pendingFailed++;
+            progress.errorMessage = errorMessage;
+            if (item.getId() != null) {
+                progress.failedTracks.put(item.getId(), errorMessage);
+            }
+            flushNow = progress.registerChange(flushEvery);
+        }
+        publish(progress);
+        if (flushNow) {
+            flush(progress);
+        }
+    }
+
+    public int getFailedCount(String jobId) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            return 0;
+        }
+        synchronized (progress) {
+            return progress.failed;
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente e o estado terminal do job, e para de acompanhá-lo.
+     *
+     * Se a gravação do progresso falhar o job continua acompanhado, com o estado terminal
+     * guardado, e a varredura periódica tenta de novo; o job só é marcado como terminado depois
+     * que contadores e faixas estiverem gravados.
+     */
+    public void finish(String jobId, DownloadJob.JobStatus status, String errorMessage) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null) {
+            downloadJobRepository.markFinished(jobId, status, LocalDateTime.now(), errorMessage);
+            downloadJobRepository.findByJobId(jobId)
+                    .ifPresent(job -> progressPublisher.publishFinal(job.getUserId(), new DownloadProgressDTO(job)));
+            return;
+        }
+        synchronized (progress) {
+            progress.finalStatus = status;
+            progress.finalErrorMessage = errorMessage;
+        }
+        completeFinish(progress);
+    }
+
+    private void completeFinish(LiveProgress progress) {
+        if (!flush(progress)) {
+            logger.warn("Job {} terminou mas o progresso não foi gravado; tentando de novo", progress.jobId);
+            return;
+        }
+        // Só quem remove o job de live finaliza (finish e a varredura podem chegar juntos)
+        if (!live.remove(progress.jobId, progress)) {
+            return;
+        }
+        DownloadJob.JobStatus status;
+        String errorMessage;
+        synchronized (progress) {
+            status = progress.finalStatus;
+            errorMessage = progress.finalErrorMessage;
+        }
+        downloadJobRepository.markFinished(progress.jobId, status, LocalDateTime.now(), errorMessage);
+        DownloadProgressDTO dto;
+        synchronized (progress) {
+            progress.activeTracks.clear();
+            dto = progress.toDto(status);
+            dto.setCurrentTrack(null);
+            if (errorMessage != null) {
+                dto.setErrorMessage(errorMessage);
+            }
+        }
+        progressPublisher.publishFinal(progress.userId, dto);
+    }
+
+    /**
+     * Progresso em memória do job, mais recente que o gravado no banco.
+     */
+    public Optional<DownloadProgressDTO> getLiveProgress(String jobId, Long userId) {
+        LiveProgress progress = live.get(jobId);
+        if (progress == null || !progress.userId.equals(userId)) {
+            return Optional.empty();
+        }
+        synchronized (progress) {
+            return Optional.of(progress.toDto(DownloadJob.JobStatus.IN_PROGRESS));
+        }
+    }
+
+    private void publish(LiveProgress progress) {
+        DownloadProgressDTO dto;
+        synchronized (progress) {
+            dto = progress.toDto(DownloadJob.JobStatus.IN_PROGRESS);
+        }
+        progressPublisher.publish(progress.userId, dto);
+    }
+
+    @Scheduled(fixedDelayString = "${download.progress.flush-interval-ms:2000}")
+    public void flushDirty() {
+        long now = System.currentTimeMillis();
+        for (LiveProgress progress : live.values()) {
+            boolean finishing;
+            boolean due;
+            synchronized (progress) {
+                finishing = progress.finalStatus != null;
+                due = progress.dirty && now - progress.lastFlushAt >= flushIntervalMs;
+            }
+            if (finishing) {
+                completeFinish(progress);
+            } else if (due) {
+                flush(progress);
+            }
+        }
+    }
+
+    /**
+     * @return false se a gravação falhou (os deltas voltam para a próxima tentativa)
+     */
+    private boolean flush(LiveProgress progress) {
+        int completedDelta;
+        int failedDelta;
+        List<Long> completedIds;
+        Map<Long, String> failed;
+        String track;
+        String artist;
+        String path;
+        String error;
+        synchronized (progress) {
+            if (!progress.dirty) {
+                return true;
+            }
+            completedDelta = progress.pendingCompleted;
+            failedDelta = progress.pendingFailed;
+            completedIds = new ArrayList<>(progress.completedTrackIds);
+            failed = new LinkedHashMap<>(progress.failedTracks);
+            track = progress.currentTrack;
+            artist = progress.currentArtist;
+            path = progress.currentPath;
+            error = progress.errorMessage;
+            progress.pendingCompleted = 0;
+            progress.pendingFailed = 0;
+            progress.completedTrackIds.clear();
+            progress.failedTracks.clear();
+            progress.pendingChanges = 0;
+            progress.dirty = false;
+            progress.lastFlushAt = System.currentTimeMillis();
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!completedIds.isEmpty()) {
+                downloadTrackRepository.markStatus(completedIds, DownloadTrack.TrackStatus.COMPLETED, now);
+            }
+            for (Map.Entry<Long, String> entry : failed.entrySet()) {
+                downloadTrackRepository.markStatus(entry.getKey(), DownloadTrack.TrackStatus.FAILED, entry.getValue(), now);
+            }
+            downloadJobRepository.applyProgress(progress.jobId, completedDelta, failedDelta, track, artist, path, error);
+            return true;
+        } catch (Exception e) {
+            // Devolve os deltas para a próxima tentativa em vez de perder o progresso
+            logger.warn("Falha ao gravar progresso do job {}: {}", progress.jobId, e.getMessage());
+            synchronized (progress) {
+                progress.pendingCompleted += completedDelta;
+                progress.pendingFailed += failedDelta;
+                progress.completedTrackIds.addAll(completedIds);
+                failed.forEach(progress.failedTracks::putIfAbsent);
+                progress.dirty = true;
+            }
+            return false;
+        }
+    }
+
+    private static class LiveProgress {
+        private final String jobId;
+        private final Long userId;
+        private final String playlistName;
+        private final Integer totalTracks;
+        private final List<Long> completedTrackIds = new ArrayList<>();
+        private final Map<Long, String> failedTracks = new LinkedHashMap<>();
+        private final Map<Object, ActiveTrack> activeTracks = new LinkedHashMap<>();
+        private long completedBytes;
+        private int completed;
+        private int failed;
+        private int pendingCompleted;
+        private int pendingFailed;
+        private int pendingChanges;
+        private String currentTrack;
+        private String currentArtist;
+        private String currentPath;
+        private String errorMessage;
+        // Preenchidos quando o job termina; o job sai de live só depois de gravado
+        private DownloadJob.JobStatus finalStatus;
+        private String finalErrorMessage;
+        private boolean dirty;
+        private long lastFlushAt = System.currentTimeMillis();
+
+        private LiveProgress(DownloadJob job) {
+            this.jobId = job.getJobId();
+            this.userId = job.getUserId();
+            this.playlistName = job.getPlaylistName();
+            this.totalTracks = job.getTotalTracks();
+            this.completed = job.getCompletedTracks() != null ? job.getCompletedTracks() : 0;
+            this.failed = job.getFailedTracks() != null ? job.getFailedTracks() : 0;
+            this.errorMessage = job.getErrorMessage();
+        }
+
+        private DownloadProgressDTO toDto(DownloadJob.JobStatus status) {
+            DownloadProgressDTO dto = new DownloadProgressDTO(jobId, playlistName, totalTracks, completed, failed,
+                    status, currentTrack, errorMessage);
+            long downloadedBytes = completedBytes;
+            double bytesPerSecond = 0;
+            double activeFraction = 0;
+            List<TrackProgressDTO> tracks = new ArrayList<>(activeTracks.size());
+            for (ActiveTrack active : activeTracks.values()) {
+                YtDlpRunner.Progress bytes = active.bytes;
+                double percent = bytes.getPercent();
+                downloadedBytes += Math.max(0, bytes.getDownloadedBytes());
+                bytesPerSecond += Math.max(0, bytes.getBytesPerSecond());
+                activeFraction += Math.max(0, percent) / 100;
+                tracks.add(new TrackProgressDTO(active.position, active.trackName, active.artistName,
+                        bytes.getDownloadedBytes(),
+                        bytes.getTotalBytes() > 0 ? bytes.getTotalBytes() : null,
+                        percent >= 0 ? percent : null,
+                        bytes.getBytesPerSecond() >= 0 ? bytes.getBytesPerSecond() : null,
+                        bytes.getEtaSeconds() >= 0 ? bytes.getEtaSeconds() : null));
+            }
+            dto.setDownloadedBytes(downloadedBytes);
+            dto.setBytesPerSecond(bytesPerSecond);
+            dto.setActiveTracks(tracks);
+            // Faixas em andamento contam pela fração já baixada, para a barra andar durante cada faixa
+            if (totalTracks != null && totalTracks > 0) {
+                dto.setProgressPercentage(Math.min(100.0, (completed + activeFraction) / totalTracks * 100));
+            }
+            return dto;
+        }
+
+        private Object key(DownloadTrack item) {
+            return item.getId() != null ? item.getId() : item.getPosition();
+        }
+
+        private boolean registerChange(int flushEvery) {
+            dirty = true;
+            pendingChanges++;
+            return pendingChanges >= Math.max(1, flushEvery);
+        }
+    }
+
+    private static class ActiveTrack {
+        private final Integer position;
+        private final String trackName;
+        private final String artistName;
+        private final YtDlpRunner.Progress bytes;
+
+        private ActiveTrack(DownloadTrack item, YtDlpRunner.Progress bytes) {
+            this.position = item.getPosition();
+            this.trackName = item.getTrackName();
+            this.artistName = item.getArtistName();
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.DownloadJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escalonador de faixas compartilhado por todos os jobs de download.
+ *
+ * Cada usuário tem sua própria fila (ordenada por prioridade e ordem de chegada) e os
+ * slots livres são distribuídos em round-robin entre os usuários com trabalho pendente,
+ * respeitando um limite global e um limite por usuário de faixas simultâneas. Assim um
+ * usuário com dez playlists enormes na fila não impede que os outros avancem.
+ */
+@Component
+public class DownloadScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadScheduler.class);
+
+    private static final Comparator<TrackTask> TASK_ORDER = Comparator
+            .comparing((TrackTask task) -> task.priority)
+            .thenComparingLong(task -> task.sequence);
+
+    @Value("${download.max-concurrent-tracks:4}")
+    private int maxConcurrentTracks;
+
+    @Value("${download.max-concurrent-tracks-per-user:2}")
+    private int maxConcurrentTracksPerUser;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Com virtual threads o limite global deixa de ser o número de threads de plataforma e passa
+     * a ser quantas faixas podem estar "em voo" ao mesmo tempo; quem limita os processos yt-dlp
+     * reais é o semáforo em {@link DownloadService}.
+     */
+    @Value("${download.virtual-threads.max-in-flight:256}")
+    private int maxInFlightWithVirtualThreads;
+
+    private final Object lock = new Object();
+    private final Map<Long, UserQueue> queues = new HashMap<>();
+    private final ArrayDeque<Long> rotation = new ArrayDeque<>();
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong finishedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+
+    private ExecutorService workers;
+    private long sequence;
+    private int running;
+
+    @PostConstruct
+    void init() {
+        if (virtualThreads) {
+            maxConcurrentTracks = Math.max(maxConcurrentTracks, maxInFlightWithVirtualThreads);
+            workers = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            maxConcurrentTracks = Math.max(1, maxConcurrentTracks);
+            workers = Executors.newFixedThreadPool(maxConcurrentTracks);
+        }
+        maxConcurrentTracksPerUser = Math.max(1, Math.min(maxConcurrentTracksPerUser, maxConcurrentTracks));
+        logger.info("DownloadScheduler iniciado: {} faixas simultâneas, {} por usuário (virtual threads: {})",
+                maxConcurrentTracks, maxConcurrentTracksPerUser, virtualThreads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Enfileira uma faixa para o usuário informado. O future completa quando a tarefa termina
+     * (excepcionalmente se ela lançar exceção).
+     */
+    public CompletableFuture<Void> submit(Long userId, DownloadJob.JobPriority priority, String jobId, Runnable work) {
+        TrackTask task = new TrackTask(userId, priority != null ? priority : DownloadJob.JobPriority.NORMAL, jobId, work);
+        synchronized (lock) {
+            task.sequence = sequence++;
+            UserQueue queue = queues.computeIfAbsent(userId, id -> new UserQueue());
+            if (queue.pending.isEmpty()) {
+                rotation.remove(userId);
+                rotation.addLast(userId);
+            }
+            queue.pending.add(task);
+            submittedTasks.incrementAndGet();
+            dispatch();
+        }
+        return task.future;
+    }
+
+    /**
+     * Distribui slots livres entre os usuários em round-robin. Deve ser chamado com o lock.
+     */
+    private void dispatch() {
+        while (running < maxConcurrentTracks && !rotation.isEmpty()) {
+            TrackTask next = null;
+            int candidates = rotation.size();
+            for (int i = 0; i < candidates && next == null; i++) {
+                Long userId = rotation.pollFirst();
+                UserQueue queue = queues.get(userId);
+                if (queue == null || queue.pending.isEmpty()) {
+                    continue;
+                }
+                if (queue.running < maxConcurrentTracksPerUser) {
+                    next = queue.pending.poll();
+                    queue.running++;
+                }
+                if (!queue.pending.isEmpty()) {
+                    rotation.addLast(userId);
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            running++;
+            TrackTask task = next;
+            workers.execute(() -> runTask(task));
+        }
+    }
+
+    private void runTask(TrackTask task) {
+        try {
+            task.work.run();
+            task.future.complete(null);
+        } catch (Throwable error) {
+            failedTasks.incrementAndGet();
+            task.future.completeExceptionally(error);
+        } finally {
+            finishedTasks.incrementAndGet();
+            synchronized (lock) {
+                running--;
+                UserQueue queue = queues.get(task.userId);
+                if (queue != null) {
+                    queue.running--;
+                    if (queue.running == 0 && queue.pending.isEmpty()) {
+                        queues.remove(task.userId);
+                    }
+                }
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Fotografia das filas para a rota de métricas.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        synchronized (lock) {
+            int queued = 0;
+            Map<DownloadJob.JobPriority, Integer> byPriority = new EnumMap<>(DownloadJob.JobPriority.class);
+            for (DownloadJob.JobPriority priority : DownloadJob.JobPriority.values()) {
+                byPriority.put(priority, 0);
+            }
+            Map<Long, Map<String, Integer>> byUser = new LinkedHashMap<>();
+            Set<String> queuedJobs = new HashSet<>();
+            for (Map.Entry<Long, UserQueue> entry : queues.entrySet()) {
+                UserQueue queue = entry.getValue();
+                queued += queue.pending.size();
+                for (TrackTask task : queue.pending) {
+                    byPriority.merge(task.priority, 1, Integer::sum);
+                    queuedJobs.add(task.jobId);
+                }
+                byUser.put(entry.getKey(), Map.of("queued", queue.pending.size(), "running", queue.running));
+            }
+            snapshot.put("virtualThreads", virtualThreads);
+            snapshot.put("maxConcurrentTracks", maxConcurrentTracks);
+            snapshot.put("maxConcurrentTracksPerUser", maxConcurrentTracksPerUser);
+            snapshot.put("running", running);
+            snapshot.put("queued", queued);
+            snapshot.put("queuedByPriority", byPriority);
+            snapshot.put("queuedJobs", queuedJobs.size());
+            snapshot.put("users", byUser);
+        }
+        snapshot.put("submittedTotal", submittedTasks.get());
+        snapshot.put("finishedTotal", finishedTasks.get());
+        snapshot.put("failedTotal", failedTasks.get());
+        return snapshot;
+    }
+
+    private static class UserQueue {
+        private final PriorityQueue<TrackTask> pending = new PriorityQueue<>(TASK_ORDER);
+        private int running;
+    }
+
+    private static class TrackTask {
+        private final Long userId;
+        private final DownloadJob.JobPriority priority;
+        private final String jobId;
+        private final Runnable work;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private long sequence;
+
+        private TrackTask(Long userId, DownloadJob.JobPriority priority, String jobId, Runnable work) {
+            this.userId = userId;
+            this.priority = priority;
+            this.jobId = jobId;
+            this.work = work;
+        }
+    }
+}
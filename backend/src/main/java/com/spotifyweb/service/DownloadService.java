@@ -3,32 +3,37 @@ package com.spotifyweb.service;
 import com.spotifyweb.dto.DownloadRequestDTO;
 import com.spotifyweb.dto.DownloadProgressDTO;
 import com.spotifyweb.entity.DownloadJob;
+import com.spotifyweb.entity.DownloadTrack;
 import com.spotifyweb.entity.User;
 import com.spotifyweb.repository.DownloadJobRepository;
+import com.spotifyweb.repository.DownloadTrackRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import se.michaelthelin.spotify.model_objects.specification.Album;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
 import se.michaelthelin.spotify.model_objects.specification.Track;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class DownloadService {
 
     private static final Logger logger = LoggerFactory.getLogger(DownloadService.class);
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
+    public static final String LIKED_TRACKS_ID = "liked-tracks";
+    private static final String YOUTUBE_WATCH_URL = "https://www.youtube.com/watch?v=";
 
     @Autowired
     private SpotifyService spotifyService;
@@ -36,9 +41,44 @@ public class DownloadService {
     @Autowired
     private DownloadJobRepository downloadJobRepository;
 
+    @Autowired
+    private DownloadTrackRepository downloadTrackRepository;
+
+    @Autowired
+    private DownloadScheduler downloadScheduler;
+
+    @Autowired
+    private DownloadProgressTracker progressTracker;
+
+    @Autowired
+    private YtDlpRunner ytDlpRunner;
+
+    @Autowired
+    private TrackStore trackStore;
+
+    @Autowired
+    private TrackResolutionService trackResolutionService;
+
+    @Autowired
+    private DownloadPipeline downloadPipeline;
+
+    @Autowired
+    private YouTubeMatcher youTubeMatcher;
+
+    @Autowired
+    private ProcessPermits processPermits;
+
     @Value("${download.base-path}")
     private String downloadPath;
 
+    /**
+     * {@code local}: as faixas rodam no {@link DownloadScheduler} desta JVM. {@code distributed}:
+     * os jobs só são gravados e as faixas são reservadas por {@link DistributedDownloadWorker}
+     * em qualquer nó com o worker habilitado.
+     */
+    @Value("${download.worker.mode:local}")
+    private String workerMode;
+
     public String downloadPlaylist(DownloadRequestDTO request, User user) {
         if (request.getUrl() == null || request.getUrl().isEmpty()) {
             throw new IllegalArgumentException("URL é obrigatório");
@@ -49,12 +89,14 @@ public class DownloadService {
 
     public String downloadPlaylistById(String playlistId, User user) {
         try {
+            if (LIKED_TRACKS_ID.equals(playlistId)) {
+                // Coleções de curtidas costumam ser enormes: ficam atrás de álbuns e playlists
+                List<Track> tracks = spotifyService.getLikedTracks(user);
+                return startJob(playlistId, "Músicas curtidas", DownloadJob.JobPriority.LOW, tracks, user.getId());
+            }
             List<Track> tracks = spotifyService.getPlaylistTracks(user, playlistId);
             String playlistName = spotifyService.getPlaylistName(user, playlistId);
-
-            String jobId = createJob(playlistId, playlistName, tracks.size(), user.getId());
-            executor.submit(() -> executeTracksDownload(jobId, playlistId, playlistName, tracks));
-            return jobId;
+            return startJob(playlistId, playlistName, DownloadJob.JobPriority.NORMAL, tracks, user.getId());
         } catch (Exception e) {
             logger.error("Erro ao agendar download da playlist {}", playlistId, e);
             throw new RuntimeException("Falha ao iniciar download da playlist", e);
@@ -74,9 +116,7 @@ public class DownloadService {
             Album album = spotifyService.getAlbum(user, albumId);
             List<Track> tracks = spotifyService.getAlbumTracks(user, album);
 
-            String jobId = createJob(albumId, album.getName(), tracks.size(), user.getId());
-            executor.submit(() -> executeTracksDownload(jobId, albumId, album.getName(), tracks));
-            return jobId;
+            return startJob(albumId, album.getName(), DownloadJob.JobPriority.HIGH, tracks, user.getId());
         } catch (Exception e) {
             logger.error("Erro ao agendar download do álbum {}", albumId, e);
             throw new RuntimeException("Falha ao iniciar download do álbum", e);
@@ -84,114 +124,241 @@ public class DownloadService {
     }
 
     public Optional<DownloadProgressDTO> getDownloadProgress(String jobId, Long userId) {
-        return downloadJobRepository.findByJobIdAndUserId(jobId, userId)
-                .map(DownloadProgressDTO::new);
+        return progressTracker.getLiveProgress(jobId, userId)
+                .or(() -> downloadJobRepository.findByJobIdAndUserId(jobId, userId).map(DownloadProgressDTO::new));
+    }
+
+    /**
+     * Retoma jobs que ficaram PENDING/IN_PROGRESS quando a JVM parou. As faixas vêm da tabela
+     * download_tracks, então o Spotify não é consultado de novo; faixas cujo arquivo já existe
+     * em disco são concluídas na hora por {@link #processTrack}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        if (isDistributed()) {
+            // Faixas de nós que caíram voltam para a fila quando o lease vence
+            return;
+        }
+        List<DownloadJob> unfinished = downloadJobRepository.findByStatusInOrderByCreatedAtDesc(List.of(
+                DownloadJob.JobStatus.PENDING, DownloadJob.JobStatus.IN_PROGRESS, DownloadJob.JobStatus.DOWNLOADING));
+        for (DownloadJob job : unfinished) {
+            try {
+                resumeJob(job);
+            } catch (Exception e) {
+                logger.error("Não foi possível retomar o job {}", job.getJobId(), e);
+            }
+        }
     }
 
-    private String createJob(String targetId, String targetName, int totalTracks, Long userId) {
+    private void resumeJob(DownloadJob job) {
+        List<DownloadTrack> items = downloadTrackRepository.findByJobIdOrderByPosition(job.getJobId());
+        if (items.isEmpty()) {
+            // Job criado antes das faixas serem persistidas: não há como retomar
+            job.setStatus(DownloadJob.JobStatus.FAILED);
+            job.setErrorMessage("Download interrompido antes de terminar");
+            job.setCompletedAt(LocalDateTime.now());
+            downloadJobRepository.save(job);
+            return;
+        }
+
+        List<DownloadTrack> remaining = new ArrayList<>();
+        int completed = 0;
+        int failed = 0;
+        for (DownloadTrack item : items) {
+            switch (item.getStatus()) {
+                case COMPLETED -> completed++;
+                case FAILED -> failed++;
+                default -> remaining.add(item);
+            }
+        }
+        job.setCompletedTracks(completed);
+        job.setFailedTracks(failed);
+        logger.info("Retomando job {} ({}): {} de {} faixas pendentes",
+                job.getJobId(), job.getPlaylistName(), remaining.size(), items.size());
+        scheduleTracks(job, remaining);
+    }
+
+    String startJob(String targetId, String targetName, DownloadJob.JobPriority priority, List<Track> tracks, Long userId) {
+        DownloadJob job = createJob(targetId, targetName, priority, tracks.size(), userId);
+        List<DownloadTrack> items = new ArrayList<>(tracks.size());
+        int position = 0;
+        for (Track track : tracks) {
+            ArtistSimplified[] artists = track.getArtists();
+            items.add(new DownloadTrack(
+                    job.getJobId(),
+                    position++,
+                    track.getId(),
+                    track.getName(),
+                    artists != null && artists.length > 0 ? artists[0].getName() : null,
+                    track.getDurationMs()
+            ));
+        }
+        scheduleTracks(job, downloadTrackRepository.saveAll(items));
+        return job.getJobId();
+    }
+
+    private DownloadJob createJob(String targetId, String targetName, DownloadJob.JobPriority priority, int totalTracks, Long userId) {
         String jobId = UUID.randomUUID().toString();
         DownloadJob job = new DownloadJob(jobId, targetName, targetId, totalTracks, userId);
         job.setStatus(DownloadJob.JobStatus.PENDING);
+        job.setPriority(priority);
         job.setCompletedTracks(0);
         job.setFailedTracks(0);
-        downloadJobRepository.save(job);
-        return jobId;
+        return downloadJobRepository.save(job);
     }
 
-    private void executeTracksDownload(String jobId, String targetId, String targetName, List<Track> tracks) {
-        DownloadJob job = downloadJobRepository.findByJobId(jobId)
-                .orElseThrow(() -> new IllegalStateException("Download job não encontrado: " + jobId));
-
-        job.setStatus(DownloadJob.JobStatus.IN_PROGRESS);
-        downloadJobRepository.save(job);
-
-        String folderName = sanitizeFileName(targetName != null ? targetName : targetId);
-        String baseDirPath = Paths.get(downloadPath, folderName).toString();
+    /**
+     * Entrega cada faixa ao {@link DownloadScheduler} e finaliza o job quando a última terminar.
+     * Nenhuma thread fica bloqueada esperando o job: a finalização roda na thread da última faixa.
+     */
+    private void scheduleTracks(DownloadJob job, List<DownloadTrack> items) {
+        if (isDistributed()) {
+            // O job fica PENDING até algum worker reservar a primeira faixa
+            if (items.isEmpty()) {
+                progressTracker.finish(job.getJobId(), DownloadJob.JobStatus.COMPLETED, null);
+            }
+            return;
+        }
+        String targetId = job.getPlaylistId();
+        String baseDirPath = resolveJobDirectory(job);
         File baseDir = new File(baseDirPath);
         if (!baseDir.exists() && !baseDir.mkdirs()) {
             logger.warn("Não foi possível criar diretório {}", baseDirPath);
         }
 
-        try {
-            for (Track track : tracks) {
-                processTrack(job, track, baseDirPath);
-            }
-
-            job.setCompletedAt(LocalDateTime.now());
-            if (job.getFailedTracks() != null && job.getFailedTracks() > 0) {
-                job.setStatus(DownloadJob.JobStatus.FAILED);
-            } else {
-                job.setStatus(DownloadJob.JobStatus.COMPLETED);
-            }
-            job.setTrack(null);
-            downloadJobRepository.save(job);
-            logger.info("Finalizado download para {}", targetId);
-        } catch (Exception e) {
-            logger.error("Erro inesperado ao baixar {}", targetId, e);
-            job.setStatus(DownloadJob.JobStatus.FAILED);
-            job.setErrorMessage(e.getMessage());
-            job.setCompletedAt(LocalDateTime.now());
-            downloadJobRepository.save(job);
+        job.setStatus(DownloadJob.JobStatus.IN_PROGRESS);
+        downloadJobRepository.save(job);
+        progressTracker.register(job);
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>(items.size());
+        for (DownloadTrack item : items) {
+            pending.add(downloadScheduler
+                    .submit(job.getUserId(), job.getPriority(), job.getJobId(), () -> processTrack(job, item, baseDirPath))
+                    .exceptionally(error -> {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        registerFailure(job, item, cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                        return null;
+                    }));
         }
+        // Só finaliza o job depois que todas as faixas terminaram (com sucesso ou falha)
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> finishJob(job, targetId, error));
     }
 
-    private void processTrack(DownloadJob job, Track track, String baseDirPath) {
-        String artistName = track.getArtists()[0].getName();
-        String trackName = track.getName();
+    /**
+     * Arquivo final de uma faixa do job; usado também pela sincronização para podar faixas.
+     */
+    String resolveTrackPath(DownloadJob job, DownloadTrack item) {
+        return resolveTrackPath(resolveJobDirectory(job), item.getTrackName());
+    }
+
+    private String resolveTrackPath(String baseDirPath, String trackName) {
         String sanitizedTrackName = trackName.replaceAll("[\\/:*?\"<>|]", "");
-        String finalPath = Paths.get(baseDirPath, sanitizedTrackName + ".mp3").toString();
-        File finalFile = new File(finalPath);
+        return Paths.get(baseDirPath, sanitizedTrackName + ".mp3").toString();
+    }
 
-        job.setArtist(artistName);
-        job.setTrack(trackName);
-        job.setPath(finalPath);
-        job.setErrorMessage(null);
-        downloadJobRepository.save(job);
+    boolean isDistributed() {
+        return "distributed".equalsIgnoreCase(workerMode);
+    }
+
+    private String resolveJobDirectory(DownloadJob job) {
+        String targetName = job.getPlaylistName();
+        String folderName = sanitizeFileName(targetName != null ? targetName : job.getPlaylistId());
+        return Paths.get(downloadPath, folderName).toString();
+    }
+
+    private void finishJob(DownloadJob job, String targetId, Throwable error) {
+        if (error != null) {
+            logger.error("Erro inesperado ao baixar {}", targetId, error);
+            progressTracker.finish(job.getJobId(), DownloadJob.JobStatus.FAILED, truncateErrorMessage(error.getMessage()));
+        } else if (progressTracker.getFailedCount(job.getJobId()) > 0) {
+            progressTracker.finish(job.getJobId(), DownloadJob.JobStatus.FAILED, null);
+        } else {
+            progressTracker.finish(job.getJobId(), DownloadJob.JobStatus.COMPLETED, null);
+        }
+        logger.info("Finalizado download para {}", targetId);
+    }
+
+    private void processTrack(DownloadJob job, DownloadTrack item, String baseDirPath) {
+        String finalPath = resolveTrackPath(baseDirPath, item.getTrackName());
 
-        if (finalFile.exists()) {
+        registerTrackStarted(job, item, finalPath);
+
+        try {
+            fetchTrack(item, finalPath);
+            registerSuccess(job, item);
+        } catch (Exception e) {
+            registerFailure(job, item, e);
+        }
+    }
+
+    /**
+     * Garante a faixa em {@code finalPath} (nada a fazer se o arquivo já existe). Com o
+     * {@link TrackStore} ligado a faixa é baixada uma vez para o store e a pasta do job recebe
+     * um link; sem id do Spotify ou com o store desligado, baixa para {@code finalPath} (via temporário).
+     */
+    void fetchTrack(DownloadTrack item, String finalPath) throws IOException, InterruptedException {
+        if (new File(finalPath).exists()) {
             logger.info("Arquivo já existe: {}", finalPath);
-            job.setCompletedTracks(increment(job.getCompletedTracks()));
-            downloadJobRepository.save(job);
+            trackStore.adopt(item.getSpotifyTrackId(), Paths.get(finalPath));
             return;
         }
+        if (trackStore.isEnabled() && item.getSpotifyTrackId() != null) {
+            trackStore.materialize(item.getSpotifyTrackId(), Paths.get(finalPath),
+                    target -> downloadTrack(item, target.toString()));
+            return;
+        }
+        TrackStore.fetchAtomically(Paths.get(finalPath), target -> downloadTrack(item, target.toString()));
+    }
 
-        try {
-            String searchQuery = buildYoutubeSearchQuery(artistName, trackName, false);
-            downloadFromYouTube(searchQuery, finalPath);
-            job.setCompletedTracks(increment(job.getCompletedTracks()));
-            downloadJobRepository.save(job);
-        } catch (YtDlpException primaryError) {
-            if (shouldRetryWithoutLive(primaryError, trackName)) {
-                String fallbackTrackName = removeLiveKeywords(trackName);
-                String fallbackQuery = buildYoutubeSearchQuery(artistName, fallbackTrackName, false);
-                logger.info("Tentando novamente sem marcadores ao vivo: {}", fallbackQuery);
-                try {
-                    downloadFromYouTube(fallbackQuery, finalPath);
-                    job.setCompletedTracks(increment(job.getCompletedTracks()));
-                    downloadJobRepository.save(job);
-                    return;
-                } catch (YtDlpException fallbackError) {
-                    registerFailure(job, trackName, fallbackError);
-                } catch (Exception fallbackError) {
-                    registerFailure(job, trackName, fallbackError);
-                }
-            } else {
-                registerFailure(job, trackName, primaryError);
+    /**
+     * Baixa a faixa para {@code outputPath}. Se a faixa já foi resolvida antes, baixa direto o
+     * vídeo conhecido; se ele falhar (removido, bloqueado) a resolução é descartada e a faixa é
+     * buscada de novo. A busca é feita pelo {@link YouTubeMatcher}, que só devolve o melhor
+     * candidato; apenas esse vídeo é baixado.
+     * Com {@code download.pipeline.enabled} o trabalho é feito em estágios pelo {@link DownloadPipeline}.
+     */
+    private void downloadTrack(DownloadTrack item, String outputPath) throws IOException, InterruptedException {
+        String spotifyTrackId = item.getSpotifyTrackId();
+        YtDlpRunner.ProgressListener listener = progress -> progressTracker.trackProgress(item.getJobId(), item, progress);
+
+        if (downloadPipeline.isEnabled()) {
+            downloadPipeline.process(item, outputPath, listener);
+            return;
+        }
+
+        Optional<String> knownVideoId = trackResolutionService.findVideoId(spotifyTrackId);
+        if (knownVideoId.isPresent()) {
+            try {
+                downloadFromYouTube(YOUTUBE_WATCH_URL + knownVideoId.get(), outputPath, listener);
+                return;
+            } catch (YtDlpException e) {
+                logger.info("Vídeo {} falhou para a faixa {}; buscando de novo", knownVideoId.get(), item.getTrackName());
+                trackResolutionService.invalidate(spotifyTrackId, knownVideoId.get());
             }
-        } catch (Exception e) {
-            registerFailure(job, trackName, e);
         }
+
+        String videoId = youTubeMatcher.findBestMatch(item);
+        downloadFromYouTube(YOUTUBE_WATCH_URL + videoId, outputPath, listener);
+        trackResolutionService.record(spotifyTrackId, videoId);
     }
 
-    private void registerFailure(DownloadJob job, String trackName, Exception error) {
-        logger.error("Falha ao baixar faixa {}", trackName, error);
-        job.setFailedTracks(increment(job.getFailedTracks()));
-        job.setErrorMessage(truncateErrorMessage(error.getMessage()));
-        downloadJobRepository.save(job);
+    /*
+     * As faixas de um mesmo job rodam em paralelo; o progresso vai para o
+     * DownloadProgressTracker, que grava no banco em lotes.
+     */
+    private void registerTrackStarted(DownloadJob job, DownloadTrack item, String finalPath) {
+        item.setFilePath(finalPath);
+        progressTracker.trackStarted(job.getJobId(), item, finalPath);
     }
 
-    private int increment(Integer value) {
-        return value == null ? 1 : value + 1;
+    private void registerSuccess(DownloadJob job, DownloadTrack item) {
+        progressTracker.trackCompleted(job.getJobId(), item);
+    }
+
+    private void registerFailure(DownloadJob job, DownloadTrack item, Exception error) {
+        logger.error("Falha ao baixar faixa {}", item.getTrackName(), error);
+        progressTracker.trackFailed(job.getJobId(), item, truncateErrorMessage(error.getMessage()));
     }
 
     private String sanitizeFileName(String name) {
@@ -214,37 +381,24 @@ public class DownloadService {
         return id;
     }
 
-    private String buildYoutubeSearchQuery(String artistName, String trackName, boolean restrictToOfficialAudio) {
-        StringBuilder builder = new StringBuilder("ytsearch1:");
-        if (artistName != null && !artistName.isBlank()) {
-            builder.append('"').append(artistName.trim()).append('"');
-        }
-        if (trackName != null && !trackName.isBlank()) {
-            if (builder.charAt(builder.length() - 1) != ':') {
-                builder.append(' ');
-            }
-            builder.append('"').append(trackName.trim()).append('"');
-        }
-        if (restrictToOfficialAudio) {
-            builder.append(" áudio oficial");
-        }
-        return builder.toString();
-    }
-
-    private void downloadFromYouTube(String youtubeUrl, String outputPath) throws IOException, InterruptedException {
+    /**
+     * Executa o yt-dlp para o vídeo informado. O progresso do download vai para {@code listener}
+     * enquanto o yt-dlp roda.
+     */
+    private void downloadFromYouTube(String youtubeUrl, String outputPath, YtDlpRunner.ProgressListener listener)
+            throws IOException, InterruptedException {
         logger.info("Baixando do YouTube: {}", youtubeUrl);
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "yt-dlp",
+        List<String> args = new ArrayList<>(List.of(
                 "-x",
                 "--audio-format", "mp3",
                 "--match-filter", "!is_short",
-                "-o", outputPath,
-                youtubeUrl
-        );
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
-        String output = readProcessOutput(process);
-        int exitCode = process.waitFor();
+                "-o", outputPath
+        ));
+        args.addAll(YtDlpOutput.PROGRESS_ARGS);
+        args.add(youtubeUrl);
+        YtDlpRunner.Result result = processPermits.run(() -> ytDlpRunner.run(args, listener));
+        String output = result.getOutput();
+        int exitCode = result.getExitCode();
         if (exitCode != 0) {
             logger.warn("yt-dlp falhou ({}): {}", exitCode, output);
             throw new YtDlpException(exitCode, output);
@@ -255,35 +409,7 @@ public class DownloadService {
         logger.info("Arquivo salvo em: {}", outputPath);
     }
 
-    private String readProcessOutput(Process process) throws IOException {
-        try (var inputStream = process.getInputStream()) {
-            byte[] bytes = inputStream.readAllBytes();
-            return new String(bytes, StandardCharsets.UTF_8).trim();
-        }
-    }
-
-    private boolean shouldRetryWithoutLive(YtDlpException error, String trackName) {
-        if (error.getExitCode() != 1 || trackName == null) {
-            return false;
-        }
-        String normalized = trackName.toLowerCase();
-        if (normalized.contains("ao vivo") || normalized.contains("live")) {
-            String cleaned = removeLiveKeywords(trackName);
-            return cleaned != null && !cleaned.isBlank() && !cleaned.equals(trackName);
-        }
-        return false;
-    }
-
-    private String removeLiveKeywords(String name) {
-        if (name == null) {
-            return null;
-        }
-        String cleaned = name.replaceAll("(?i)\\s*[-–—]?\\s*(ao vivo|live)", "");
-        cleaned = cleaned.replaceAll("\\s+", " ").trim();
-        return cleaned.isBlank() ? name : cleaned;
-    }
-
-    private String truncateErrorMessage(String message) {
+    String truncateErrorMessage(String message) {
         if (message == null) {
             return null;
         }
@@ -294,21 +420,8 @@ public class DownloadService {
     }
 
     private static class YtDlpException extends IOException {
-        private final int exitCode;
-        private final String output;
-
         private YtDlpException(int exitCode, String output) {
             super(buildMessage(exitCode, output));
-            this.exitCode = exitCode;
-            this.output = output;
-        }
-
-        int getExitCode() {
-            return exitCode;
-        }
-
-        String getOutput() {
-            return output;
         }
 
         private static String buildMessage(int exitCode, String output) {
@@ -0,0 +1,137 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.DownloadJob;
+import com.spotifyweb.entity.DownloadTrack;
+import com.spotifyweb.repository.DownloadJobRepository;
+import com.spotifyweb.repository.DownloadTrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Fila de faixas do modo distribuído, guardada na própria tabela download_tracks.
+ *
+ * Um nó reserva faixas gravando nelas {@code lease_owner} e {@code lease_expires_at}; enquanto
+ * baixa, renova o lease com heartbeats. Se o nó cair, o lease vence e a faixa volta a ser
+ * reservável por outro nó. Conclusões só contam se o lease ainda for de quem conclui, e os
+ * contadores do job são incrementados na mesma transação, então cada faixa conta uma única vez.
+ */
+@Component
+@ConditionalOnProperty(name = "download.worker.mode", havingValue = "distributed")
+public class DownloadWorkQueue {
+
+    private static final List<DownloadTrack.TrackStatus> OPEN_TRACK_STATUSES = List.of(
+            DownloadTrack.TrackStatus.PENDING, DownloadTrack.TrackStatus.IN_PROGRESS);
+    private static final List<DownloadJob.JobStatus> ACTIVE_JOB_STATUSES = List.of(
+            DownloadJob.JobStatus.PENDING, DownloadJob.JobStatus.IN_PROGRESS, DownloadJob.JobStatus.DOWNLOADING);
+
+    @Autowired
+    private DownloadTrackRepository downloadTrackRepository;
+
+    @Autowired
+    private DownloadJobRepository downloadJobRepository;
+
+    @Value("${download.worker.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${download.worker.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Reserva até {@code limit} faixas para o nó. Jobs que ainda estavam PENDING passam a IN_PROGRESS.
+     */
+    @Transactional
+    public List<DownloadTrack> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DownloadTrack> claimed = downloadTrackRepository.lockClaimable(now,
+                ACTIVE_JOB_STATUSES.stream().map(Enum::name).toList(), maxAttempts, limit);
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+        Set<String> jobIds = new LinkedHashSet<>();
+        for (DownloadTrack item : claimed) {
+            item.setStatus(DownloadTrack.TrackStatus.IN_PROGRESS);
+            item.setLeaseOwner(owner);
+            item.setLeaseExpiresAt(now.plusNanos(leaseMs * 1_000_000L));
+            item.setAttempts((item.getAttempts() != null ? item.getAttempts() : 0) + 1);
+            jobIds.add(item.getJobId());
+        }
+        downloadJobRepository.transitionStatus(jobIds, DownloadJob.JobStatus.PENDING, DownloadJob.JobStatus.IN_PROGRESS);
+        return claimed;
+    }
+
+    public int heartbeat(String owner) {
+        return downloadTrackRepository.extendLeases(owner, DownloadTrack.TrackStatus.IN_PROGRESS,
+                LocalDateTime.now().plusNanos(leaseMs * 1_000_000L));
+    }
+
+    /**
+     * Registra o resultado da faixa e soma nos contadores do job. Devolve false se o lease já
+     * não era deste nó (venceu e outro nó assumiu a faixa); nesse caso nada é contado.
+     */
+    @Transactional
+    public boolean complete(DownloadTrack item, String owner, boolean success, String filePath, String errorMessage) {
+        DownloadTrack.TrackStatus status = success ? DownloadTrack.TrackStatus.COMPLETED : DownloadTrack.TrackStatus.FAILED;
+        int updated = downloadTrackRepository.completeLease(item.getId(), owner, DownloadTrack.TrackStatus.IN_PROGRESS,
+                status, filePath, success ? null : errorMessage, LocalDateTime.now());
+        if (updated == 0) {
+            return false;
+        }
+        downloadJobRepository.applyProgress(item.getJobId(), success ? 1 : 0, success ? 0 : 1,
+                item.getTrackName(), item.getArtistName(), filePath, success ? null : errorMessage);
+        return true;
+    }
+
+    /**
+     * Marca como falhas as faixas cujo lease venceu depois de esgotar as tentativas. Devolve os
+     * jobs afetados para que sejam finalizados, se for o caso.
+     */
+    @Transactional
+    public Set<String> failExhausted(int limit) {
+        List<DownloadTrack> exhausted = downloadTrackRepository.lockExhausted(LocalDateTime.now(), maxAttempts, limit);
+        Set<String> jobIds = new LinkedHashSet<>();
+        for (DownloadTrack item : exhausted) {
+            String errorMessage = "Download interrompido " + item.getAttempts() + " vezes";
+            item.setStatus(DownloadTrack.TrackStatus.FAILED);
+            item.setErrorMessage(errorMessage);
+            item.setLeaseOwner(null);
+            item.setLeaseExpiresAt(null);
+            downloadJobRepository.applyProgress(item.getJobId(), 0, 1, item.getTrackName(), item.getArtistName(),
+                    item.getFilePath(), errorMessage);
+            jobIds.add(item.getJobId());
+        }
+        return jobIds;
+    }
+
+    /**
+     * Finaliza o job se não restar faixa pendente ou reservada. Só um nó consegue; para os
+     * demais (ou se ainda houver faixas) o resultado é vazio.
+     */
+    public Optional<DownloadJob.JobStatus> finishIfDone(String jobId) {
+        if (downloadTrackRepository.countByJobIdAndStatusIn(jobId, OPEN_TRACK_STATUSES) > 0) {
+            return Optional.empty();
+        }
+        int completed = (int) downloadTrackRepository.countByJobIdAndStatus(jobId, DownloadTrack.TrackStatus.COMPLETED);
+        int failed = (int) downloadTrackRepository.countByJobIdAndStatus(jobId, DownloadTrack.TrackStatus.FAILED);
+        DownloadJob.JobStatus status = failed > 0 ? DownloadJob.JobStatus.FAILED : DownloadJob.JobStatus.COMPLETED;
+        int updated = downloadJobRepository.finishIfActive(jobId, ACTIVE_JOB_STATUSES, status, LocalDateTime.now(),
+                completed, failed);
+        return updated > 0 ? Optional.of(status) : Optional.empty();
+    }
+
+    /**
+     * Devolve à fila as faixas reservadas por este nó (desligamento ordenado).
+     */
+    public int release(String owner) {
+        return downloadTrackRepository.releaseLeases(owner, DownloadTrack.TrackStatus.IN_PROGRESS,
+                DownloadTrack.TrackStatus.PENDING);
+    }
+}
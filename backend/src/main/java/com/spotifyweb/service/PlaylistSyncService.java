@@ -0,0 +1,200 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.cache.SpotifyCatalogCache;
+import com.spotifyweb.dto.PlaylistSyncResultDTO;
+import com.spotifyweb.entity.DownloadJob;
+import com.spotifyweb.entity.DownloadTrack;
+import com.spotifyweb.entity.PlaylistSyncState;
+import com.spotifyweb.entity.User;
+import com.spotifyweb.repository.DownloadJobRepository;
+import com.spotifyweb.repository.DownloadTrackRepository;
+import com.spotifyweb.repository.PlaylistSyncStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Sincronização incremental de playlists.
+ *
+ * Guarda o último snapshot_id visto e as faixas já baixadas. Se o snapshot não mudou e o
+ * último job não teve falhas, nada é feito além de uma consulta leve ao Spotify; caso
+ * contrário só as faixas novas (ou que falharam) entram na fila, e opcionalmente os arquivos
+ * de faixas removidas da playlist são apagados.
+ */
+@Service
+public class PlaylistSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistSyncService.class);
+
+    private static final List<DownloadJob.JobStatus> RUNNING_STATUSES = List.of(
+            DownloadJob.JobStatus.PENDING, DownloadJob.JobStatus.IN_PROGRESS, DownloadJob.JobStatus.DOWNLOADING);
+
+    @Autowired
+    private SpotifyService spotifyService;
+
+    @Autowired
+    private DownloadService downloadService;
+
+    @Autowired
+    private PlaylistSyncStateRepository syncStateRepository;
+
+    @Autowired
+    private DownloadJobRepository downloadJobRepository;
+
+    @Autowired
+    private DownloadTrackRepository downloadTrackRepository;
+
+    // Locks listrados por usuário/playlist: memória fixa, e duas sincronizações da mesma playlist
+    // nunca rodam juntas. Quem encontra o lock ocupado não espera (a sincronização inclui a
+    // paginação inteira no Spotify) e recebe ALREADY_RUNNING; ReentrantLock em vez de
+    // synchronized para não prender a thread de plataforma de uma virtual thread durante o I/O
+    private static final int LOCK_STRIPES = 64;
+    private final ReentrantLock[] locks = IntStream.range(0, LOCK_STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+
+    public PlaylistSyncResultDTO syncPlaylist(String playlistId, User user, boolean prune) {
+        if (playlistId == null || playlistId.isBlank()) {
+            throw new IllegalArgumentException("Playlist ID is required");
+        }
+        if (DownloadService.LIKED_TRACKS_ID.equals(playlistId)) {
+            throw new IllegalArgumentException("Liked tracks have no snapshot_id and cannot be synced");
+        }
+        ReentrantLock lock = locks[Math.floorMod((user.getId() + ":" + playlistId).hashCode(), LOCK_STRIPES)];
+        if (!lock.tryLock()) {
+            logger.debug("Sync of playlist {} skipped: another sync holds its lock", playlistId);
+            return new PlaylistSyncResultDTO(playlistId, null,
+                    PlaylistSyncResultDTO.SyncStatus.ALREADY_RUNNING, null, 0, 0);
+        }
+        try {
+            return doSync(playlistId, user, prune);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Erro ao sincronizar playlist {}", playlistId, e);
+            throw new RuntimeException("Falha ao sincronizar playlist", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PlaylistSyncResultDTO doSync(String playlistId, User user, boolean prune) throws Exception {
+        PlaylistSyncState state = syncStateRepository.findByUserIdAndPlaylistId(user.getId(), playlistId)
+                .orElseGet(() -> new PlaylistSyncState(user.getId(), playlistId));
+
+        boolean lastJobHadFailures = false;
+        if (state.getLastJobId() != null) {
+            Optional<DownloadJob> lastJob = downloadJobRepository.findByJobId(state.getLastJobId());
+            if (lastJob.isPresent() && RUNNING_STATUSES.contains(lastJob.get().getStatus())) {
+                return new PlaylistSyncResultDTO(playlistId, state.getSnapshotId(),
+                        PlaylistSyncResultDTO.SyncStatus.ALREADY_RUNNING, state.getLastJobId(), 0, 0);
+            }
+            lastJobHadFailures = lastJob.map(job -> absorbFinishedJob(state, job)).orElse(false);
+            if (!lastJobHadFailures) {
+                // Nada mais a aprender com esse job; evita reler as faixas dele a cada sincronização
+                state.setLastJobId(null);
+            }
+        }
+
+        SpotifyCatalogCache.PlaylistHead head = spotifyService.getPlaylistHead(user, playlistId);
+        boolean snapshotUnchanged = head.getSnapshotId() != null && head.getSnapshotId().equals(state.getSnapshotId());
+        if (snapshotUnchanged && !lastJobHadFailures) {
+            state.setLastSyncedAt(LocalDateTime.now());
+            syncStateRepository.save(state);
+            return new PlaylistSyncResultDTO(playlistId, head.getSnapshotId(),
+                    PlaylistSyncResultDTO.SyncStatus.UP_TO_DATE, null, 0, 0);
+        }
+
+        List<Track> tracks = spotifyService.getPlaylistTracks(user, playlistId);
+        Set<String> currentIds = new HashSet<>();
+        List<Track> added = new ArrayList<>();
+        for (Track track : tracks) {
+            String trackId = track.getId();
+            if (trackId == null) {
+                // Arquivos locais não têm id no Spotify; o teste de arquivo existente evita baixá-los de novo
+                added.add(track);
+            } else if (currentIds.add(trackId) && !state.getTracks().containsKey(trackId)) {
+                added.add(track);
+            }
+        }
+
+        int removed = prune ? pruneRemovedTracks(state, currentIds) : 0;
+
+        state.setSnapshotId(head.getSnapshotId());
+        state.setLastSyncedAt(LocalDateTime.now());
+        String jobId = null;
+        if (!added.isEmpty()) {
+            String playlistName = head.getName() != null ? head.getName() : playlistId;
+            jobId = downloadService.startJob(playlistId, playlistName, DownloadJob.JobPriority.LOW, added, user.getId());
+            state.setLastJobId(jobId);
+        }
+        syncStateRepository.save(state);
+
+        logger.info("Playlist {} sincronizada: {} faixas novas, {} removidas", playlistId, added.size(), removed);
+        return new PlaylistSyncResultDTO(playlistId, head.getSnapshotId(),
+                jobId != null ? PlaylistSyncResultDTO.SyncStatus.QUEUED : PlaylistSyncResultDTO.SyncStatus.UP_TO_DATE,
+                jobId, added.size(), removed);
+    }
+
+    /**
+     * Registra no estado as faixas concluídas do último job. Devolve true se alguma falhou.
+     */
+    private boolean absorbFinishedJob(PlaylistSyncState state, DownloadJob job) {
+        boolean hadFailures = false;
+        for (DownloadTrack item : downloadTrackRepository.findByJobIdOrderByPosition(job.getJobId())) {
+            if (item.getStatus() == DownloadTrack.TrackStatus.COMPLETED && item.getSpotifyTrackId() != null) {
+                state.getTracks().put(item.getSpotifyTrackId(), downloadService.resolveTrackPath(job, item));
+            } else if (item.getStatus() != DownloadTrack.TrackStatus.COMPLETED) {
+                hadFailures = true;
+            }
+        }
+        return hadFailures;
+    }
+
+    private int pruneRemovedTracks(PlaylistSyncState state, Set<String> currentIds) {
+        int removed = 0;
+        Iterator<Map.Entry<String, String>> iterator = state.getTracks().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (currentIds.contains(entry.getKey())) {
+                continue;
+            }
+            String path = entry.getValue();
+            if (path != null && !isStillReferenced(state, entry.getKey(), path)) {
+                try {
+                    Files.deleteIfExists(Paths.get(path));
+                } catch (IOException e) {
+                    logger.warn("Não foi possível apagar {}: {}", path, e.getMessage());
+                }
+            }
+            iterator.remove();
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Duas faixas diferentes podem ter o mesmo nome de arquivo; não apaga se outra ainda usa.
+     */
+    private boolean isStillReferenced(PlaylistSyncState state, String trackId, String path) {
+        return state.getTracks().entrySet().stream()
+                .anyMatch(other -> !other.getKey().equals(trackId) && Objects.equals(other.getValue(), path));
+    }
+}
@@ -0,0 +1,346 @@
+package com.spotifyweb.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de workers yt-dlp de longa duração ({@code ytdlp/ytdlp_worker.py}).
+ *
+ * Cada worker é um interpretador Python que importa o yt_dlp uma vez e atende pedidos em JSON
+ * pela entrada padrão, então cada faixa paga só o download em si. Quem chama espera por um
+ * worker livre até {@code acquireTimeoutMs} (backpressure); pedidos que passam do tempo limite
+ * matam o worker, que é substituído. Uma verificação periódica faz ping nos workers ociosos,
+ * repõe os que morreram e recicla workers depois de {@code maxJobsPerWorker} pedidos. Sem
+ * nenhum worker vivo (Python ou yt_dlp ausentes) as chamadas vão para o runner de processo.
+ */
+public class PooledYtDlpRunner implements YtDlpRunner, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledYtDlpRunner.class);
+    private static final String BUNDLED_SCRIPT = "ytdlp/ytdlp_worker.py";
+
+    private final String python;
+    private final String configuredScript;
+    private final int poolSize;
+    private final long requestTimeoutMs;
+    private final long acquireTimeoutMs;
+    private final long startTimeoutMs;
+    private final long healthCheckIntervalMs;
+    private final int maxJobsPerWorker;
+    private final YtDlpRunner fallback;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong fallbackRequests = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ytdlp-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Separado da manutenção, que fica bloqueada esperando respostas durante o health check
+    private final ScheduledExecutorService watchdogs = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ytdlp-pool-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path script;
+    private volatile boolean closed;
+
+    public PooledYtDlpRunner(String python, String configuredScript, int poolSize, long requestTimeoutMs,
+                             long acquireTimeoutMs, long startTimeoutMs, long healthCheckIntervalMs,
+                             int maxJobsPerWorker, YtDlpRunner fallback) {
+        this.python = python;
+        this.configuredScript = configuredScript;
+        this.poolSize = Math.max(1, poolSize);
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.startTimeoutMs = startTimeoutMs;
+        this.healthCheckIntervalMs = healthCheckIntervalMs;
+        this.maxJobsPerWorker = Math.max(1, maxJobsPerWorker);
+        this.fallback = fallback;
+    }
+
+    public void start() throws IOException {
+        script = resolveScript();
+        for (int i = 0; i < poolSize; i++) {
+            startWorker();
+        }
+        if (live.get() == 0) {
+            logger.warn("No yt-dlp worker could be started; falling back to one process per track");
+        } else {
+            logger.info("yt-dlp worker pool started with {} workers", live.get());
+        }
+        maintenance.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalMs, healthCheckIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Result run(List<String> args, ProgressListener listener) throws IOException, InterruptedException {
+        if (live.get() == 0) {
+            fallbackRequests.incrementAndGet();
+            return fallback.run(args, listener);
+        }
+        Worker worker = idle.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        if (worker == null) {
+            throw new IOException("yt-dlp worker pool saturated: no worker free after " + acquireTimeoutMs + " ms");
+        }
+        requests.incrementAndGet();
+        boolean healthy = false;
+        try {
+            YtDlpOutput output = new YtDlpOutput(listener);
+            JsonNode response = worker.call(Map.of("args", args), requestTimeoutMs, output);
+            Result result = new Result(response.path("exitCode").asInt(1), output.tail());
+            healthy = true;
+            return result;
+        } finally {
+            // Qualquer falha (inclusive inesperada) descarta o worker: o protocolo pode ter ficado no meio
+            if (healthy) {
+                release(worker);
+            } else {
+                discard(worker);
+                scheduleReplacement();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("runner", "pool");
+        snapshot.put("poolSize", poolSize);
+        snapshot.put("liveWorkers", live.get());
+        snapshot.put("idleWorkers", idle.size());
+        snapshot.put("requests", requests.get());
+        snapshot.put("fallbackRequests", fallbackRequests.get());
+        snapshot.put("restarts", restarts.get());
+        snapshot.put("timeouts", timeouts.get());
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        watchdogs.shutdownNow();
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            discard(worker);
+        }
+    }
+
+    private void release(Worker worker) {
+        if (closed) {
+            discard(worker);
+        } else if (++worker.jobs >= maxJobsPerWorker) {
+            // Recicla para não acumular estado do yt_dlp entre muitas execuções
+            discard(worker);
+            scheduleReplacement();
+        } else {
+            idle.offer(worker);
+        }
+    }
+
+    private void discard(Worker worker) {
+        worker.process.destroyForcibly();
+        live.decrementAndGet();
+        if (!closed) {
+            restarts.incrementAndGet();
+        }
+    }
+
+    private void scheduleReplacement() {
+        if (closed) {
+            return;
+        }
+        try {
+            maintenance.execute(this::startWorker);
+        } catch (RejectedExecutionException e) {
+            // pool encerrando
+        }
+    }
+
+    private void startWorker() {
+        if (closed || live.get() >= poolSize) {
+            return;
+        }
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(python, "-u", script.toString());
+            processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
+            Process process = processBuilder.start();
+            Worker worker = new Worker(process);
+            JsonNode ready = worker.awaitReady(startTimeoutMs);
+            if (!ready.path("ready").asBoolean(false)) {
+                process.destroyForcibly();
+                logger.warn("yt-dlp worker failed to start: {}", ready.path("error").asText());
+                return;
+            }
+            live.incrementAndGet();
+            idle.offer(worker);
+            logger.debug("yt-dlp worker started (pid {}, yt-dlp {})", process.pid(), ready.path("version").asText());
+        } catch (IOException e) {
+            logger.warn("Could not start yt-dlp worker: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ping nos workers ociosos, substituindo os que não respondem, e repõe o pool.
+     */
+    private void checkHealth() {
+        int toCheck = idle.size();
+        for (int i = 0; i < toCheck && !closed; i++) {
+            Worker worker = idle.poll();
+            if (worker == null) {
+                break;
+            }
+            try {
+                if (!worker.process.isAlive()) {
+                    throw new IOException("worker exited with code " + worker.process.exitValue());
+                }
+                worker.call(Map.of("type", "ping"), startTimeoutMs, null);
+                idle.offer(worker);
+            } catch (IOException e) {
+                logger.warn("yt-dlp worker unhealthy, restarting: {}", e.getMessage());
+                discard(worker);
+            }
+        }
+        while (!closed && live.get() < poolSize) {
+            int before = live.get();
+            startWorker();
+            if (live.get() == before) {
+                break;
+            }
+        }
+    }
+
+    private Path resolveScript() throws IOException {
+        if (configuredScript != null && !configuredScript.isBlank()) {
+            return Path.of(configuredScript);
+        }
+        Path target = Files.createTempFile("ytdlp_worker", ".py");
+        target.toFile().deleteOnExit();
+        try (InputStream inputStream = new ClassPathResource(BUNDLED_SCRIPT).getInputStream()) {
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private final class Worker {
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BufferedReader stdout;
+        private volatile boolean timedOut;
+        private int jobs;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            Thread drainer = new Thread(this::drainStderr, "ytdlp-worker-" + process.pid() + "-stderr");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+
+        private JsonNode awaitReady(long timeoutMs) throws IOException {
+            ScheduledFuture<?> watchdog = watch(timeoutMs);
+            try {
+                return readLine();
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+
+        /**
+         * Envia um pedido e espera a resposta com o mesmo id. Enquanto o yt-dlp roda o worker
+         * repassa cada linha da saída ({@code {"id": .., "line": ..}}), entregues a {@code output}.
+         * O tempo limite mata o processo, o que desbloqueia a leitura.
+         */
+        private JsonNode call(Map<String, Object> payload, long timeoutMs, YtDlpOutput output) throws IOException {
+            long id = requestIds.incrementAndGet();
+            Map<String, Object> request = new LinkedHashMap<>(payload);
+            request.put("id", id);
+            ScheduledFuture<?> watchdog = watch(timeoutMs);
+            try {
+                stdin.write(objectMapper.writeValueAsString(request));
+                stdin.newLine();
+                stdin.flush();
+                while (true) {
+                    JsonNode response = readLine();
+                    if (response.path("id").asLong(-1) != id) {
+                        continue;
+                    }
+                    if (response.has("line")) {
+                        if (output != null) {
+                            output.accept(response.get("line").asText());
+                        }
+                        continue;
+                    }
+                    return response;
+                }
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+
+        private JsonNode readLine() throws IOException {
+            String line = stdout.readLine();
+            if (line == null) {
+                if (timedOut) {
+                    timeouts.incrementAndGet();
+                    throw new IOException("yt-dlp worker timed out");
+                }
+                throw new IOException("yt-dlp worker exited unexpectedly");
+            }
+            return objectMapper.readTree(line);
+        }
+
+        private ScheduledFuture<?> watch(long timeoutMs) {
+            return watchdogs.schedule(() -> {
+                timedOut = true;
+                process.destroyForcibly();
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void drainStderr() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    logger.debug("yt-dlp worker {}: {}", process.pid(), line);
+                }
+            } catch (IOException ignored) {
+                // processo encerrado
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.spotifyweb.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limite único de processos externos ({@code download.max-processes}): downloads e buscas do
+ * yt-dlp (processos ou pedidos ao pool de workers) e conversões do ffmpeg. Com virtual threads
+ * o escalonador deixa muitas faixas em voo; as que passarem do limite ficam estacionadas aqui
+ * sem ocupar thread de plataforma.
+ */
+@Component
+public class ProcessPermits {
+
+    @FunctionalInterface
+    public interface ProcessCall<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    @Value("${download.max-processes:${download.max-concurrent-tracks:4}}")
+    private int maxProcesses;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxProcesses), true);
+    }
+
+    public <T> T run(ProcessCall<T> call) throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.spotifyweb.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Um processo yt-dlp novo por chamada (comportamento original).
+ */
+public class ProcessYtDlpRunner implements YtDlpRunner {
+
+    private final String executable;
+
+    public ProcessYtDlpRunner(String executable) {
+        this.executable = executable;
+    }
+
+    @Override
+    public Result run(List<String> args, ProgressListener listener) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(args.size() + 1);
+        command.add(executable);
+        command.addAll(args);
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        Process process = processBuilder.start();
+        YtDlpOutput output = new YtDlpOutput(listener);
+        try (var inputStream = process.getInputStream()) {
+            output.consume(inputStream);
+        } catch (IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        return new Result(process.waitFor(), output.tail());
+    }
+}
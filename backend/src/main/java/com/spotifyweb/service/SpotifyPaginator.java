@@ -0,0 +1,157 @@
+package com.spotifyweb.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.core5.http.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.model_objects.specification.Paging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Busca todas as páginas de um endpoint paginado do Spotify.
+ *
+ * A primeira página informa o {@code total}; os offsets restantes são buscados em paralelo,
+ * no máximo {@code spotify.page-concurrency} por chamada, e devolvidos na ordem original
+ * para que quem chama aplique deduplicação e conversão sequencialmente, como antes.
+ */
+@Component
+public class SpotifyPaginator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpotifyPaginator.class);
+
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        Paging<T> fetch(int offset, int limit) throws IOException, SpotifyWebApiException, ParseException;
+    }
+
+    @Value("${spotify.page-concurrency:4}")
+    private int pageConcurrency;
+
+    @Value("${spotify.page-pool-size:16}")
+    private int pagePoolSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        pageConcurrency = Math.max(1, pageConcurrency);
+        executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(Math.max(1, pagePoolSize));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Devolve as páginas em ordem de offset. Se o total crescer enquanto as páginas são buscadas,
+     * o restante é seguido por {@code next}, uma página de cada vez.
+     */
+    public <T> List<Paging<T>> fetchAll(int limit, PageFetcher<T> fetcher)
+            throws IOException, SpotifyWebApiException, ParseException {
+        List<Paging<T>> pages = new ArrayList<>();
+        Paging<T> first = fetcher.fetch(0, limit);
+        if (first == null) {
+            return pages;
+        }
+        pages.add(first);
+        if (first.getNext() == null || isEmpty(first)) {
+            return pages;
+        }
+
+        int pageSize = first.getLimit() != null && first.getLimit() > 0 ? first.getLimit() : limit;
+        int total = first.getTotal() != null ? first.getTotal() : 0;
+        int remaining = total > pageSize ? (total - 1) / pageSize : 0;
+
+        if (remaining > 0) {
+            pages.addAll(fetchRemaining(fetcher, pageSize, remaining));
+        }
+
+        Paging<T> last = pages.get(pages.size() - 1);
+        while (last != null && last.getNext() != null && !isEmpty(last)) {
+            int offset = (last.getOffset() != null ? last.getOffset() : 0) + pageSize;
+            last = fetcher.fetch(offset, pageSize);
+            if (last != null) {
+                pages.add(last);
+            }
+        }
+        return pages;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<Paging<T>> fetchRemaining(PageFetcher<T> fetcher, int pageSize, int remaining)
+            throws IOException, SpotifyWebApiException, ParseException {
+        Paging<T>[] results = new Paging[remaining];
+        AtomicInteger nextIndex = new AtomicInteger();
+        int workers = Math.min(pageConcurrency, remaining);
+
+        // Cada worker pega o próximo offset livre; assim o limite é por chamada sem bloquear threads do pool
+        CompletableFuture<?>[] futures = new CompletableFuture[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < remaining) {
+                    try {
+                        results[index] = fetcher.fetch((index + 1) * pageSize, pageSize);
+                    } catch (Exception e) {
+                        nextIndex.set(remaining);
+                        throw new CompletionException(e);
+                    }
+                }
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            rethrow(e.getCause());
+        }
+
+        List<Paging<T>> pages = new ArrayList<>(remaining);
+        for (Paging<T> page : results) {
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+        return pages;
+    }
+
+    private void rethrow(Throwable error) throws IOException, SpotifyWebApiException, ParseException {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IOException io) {
+            throw io;
+        }
+        if (cause instanceof SpotifyWebApiException api) {
+            throw api;
+        }
+        if (cause instanceof ParseException parse) {
+            throw parse;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        logger.warn("Unexpected error while paging Spotify results: {}", cause.toString());
+        throw new IllegalStateException(cause);
+    }
+
+    private boolean isEmpty(Paging<?> page) {
+        return page.getItems() == null || page.getItems().length == 0;
+    }
+}
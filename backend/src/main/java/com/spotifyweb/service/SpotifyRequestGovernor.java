@@ -0,0 +1,256 @@
+package com.spotifyweb.service;
+
+import org.apache.hc.core5.http.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.exceptions.detailed.BadGatewayException;
+import se.michaelthelin.spotify.exceptions.detailed.InternalServerErrorException;
+import se.michaelthelin.spotify.exceptions.detailed.ServiceUnavailableException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ponto único por onde passam as requisições à API do Spotify.
+ *
+ * Antes de cada chamada reserva um token no balde global da aplicação e no balde do token de
+ * acesso do usuário; se não houver token disponível a thread espera em vez de falhar. Respostas
+ * 429 respeitam o {@code Retry-After} (os baldes da aplicação e daquele token ficam bloqueados pelo período) e erros
+ * 5xx em requisições idempotentes são repetidos com backoff exponencial com jitter.
+ */
+@Component
+public class SpotifyRequestGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpotifyRequestGovernor.class);
+
+    @FunctionalInterface
+    public interface SpotifyCall<T> {
+        T call() throws IOException, SpotifyWebApiException, ParseException;
+    }
+
+    @Value("${spotify.rate.app-per-second:50}")
+    private double appPerSecond;
+
+    @Value("${spotify.rate.app-burst:100}")
+    private double appBurst;
+
+    @Value("${spotify.rate.user-per-second:10}")
+    private double userPerSecond;
+
+    @Value("${spotify.rate.user-burst:20}")
+    private double userBurst;
+
+    @Value("${spotify.rate.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${spotify.rate.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    @Value("${spotify.rate.backoff-base-ms:500}")
+    private long backoffBaseMs;
+
+    @Value("${spotify.rate.backoff-max-ms:8000}")
+    private long backoffMaxMs;
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private volatile TokenBucket appBucket;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong throttledWaitMs = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Executa a chamada respeitando os limites. {@code userKey} identifica o token de acesso
+     * (null para chamadas sem usuário, como a troca do code por tokens).
+     */
+    public <T> T execute(String userKey, boolean idempotent, SpotifyCall<T> call)
+            throws IOException, SpotifyWebApiException, ParseException {
+        int attempt = 0;
+        while (true) {
+            acquire(userKey);
+            calls.incrementAndGet();
+            try {
+                return call.call();
+            } catch (TooManyRequestsException e) {
+                rateLimited.incrementAndGet();
+                if (attempt >= maxRetries) {
+                    failures.incrementAndGet();
+                    throw e;
+                }
+                long waitMs = e.getRetryAfter() > 0
+                        ? TimeUnit.SECONDS.toMillis(e.getRetryAfter()) + ThreadLocalRandom.current().nextLong(250)
+                        : backoff(attempt);
+                logger.warn("Spotify returned 429, retrying in {} ms (attempt {}/{})", waitMs, attempt + 1, maxRetries);
+                block(userKey, waitMs);
+            } catch (InternalServerErrorException | BadGatewayException | ServiceUnavailableException e) {
+                serverErrors.incrementAndGet();
+                if (!idempotent || attempt >= maxRetries) {
+                    failures.incrementAndGet();
+                    throw e;
+                }
+                long waitMs = backoff(attempt);
+                logger.warn("Spotify returned {}, retrying in {} ms (attempt {}/{})",
+                        e.getClass().getSimpleName(), waitMs, attempt + 1, maxRetries);
+                sleep(waitMs);
+            }
+            attempt++;
+            retries.incrementAndGet();
+        }
+    }
+
+    private void acquire(String userKey) throws IOException, TooManyRequestsException {
+        long now = System.nanoTime();
+        TokenBucket app = appBucket();
+        TokenBucket user = userKey != null
+                ? userBuckets.computeIfAbsent(userKey, key -> new TokenBucket(userPerSecond, userBurst))
+                : null;
+
+        long waitNanos = app.reserve(now);
+        if (user != null) {
+            waitNanos = Math.max(waitNanos, user.reserve(now));
+        }
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1;
+        if (waitMs > maxWaitMs) {
+            app.refund();
+            if (user != null) {
+                user.refund();
+            }
+            rejected.incrementAndGet();
+            throw new TooManyRequestsException("Spotify request queue is full, try again later",
+                    (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMs)));
+        }
+        throttled.incrementAndGet();
+        throttledWaitMs.addAndGet(waitMs);
+        sleep(waitMs);
+    }
+
+    /**
+     * O Spotify limita por aplicação: um 429 bloqueia o balde da aplicação (todos os usuários)
+     * e também o do usuário que recebeu a resposta.
+     */
+    private void block(String userKey, long waitMs) {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+        appBucket().blockFor(waitNanos);
+        TokenBucket user = userKey != null ? userBuckets.get(userKey) : null;
+        if (user != null) {
+            user.blockFor(waitNanos);
+        }
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 16));
+        // "full jitter": espalha as novas tentativas para não sincronizar as threads
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to call Spotify");
+        }
+    }
+
+    private TokenBucket appBucket() {
+        TokenBucket bucket = appBucket;
+        if (bucket == null) {
+            synchronized (this) {
+                if (appBucket == null) {
+                    appBucket = new TokenBucket(appPerSecond, appBurst);
+                }
+                bucket = appBucket;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Descarta baldes de tokens que não são usados há algum tempo (tokens expirados, logouts).
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - TimeUnit.MINUTES.toNanos(10);
+        userBuckets.values().removeIf(bucket -> bucket.isIdleSince(cutoff));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("appPerSecond", appPerSecond);
+        snapshot.put("userPerSecond", userPerSecond);
+        snapshot.put("activeUserBuckets", userBuckets.size());
+        snapshot.put("calls", calls.get());
+        snapshot.put("throttled", throttled.get());
+        snapshot.put("throttledWaitMs", throttledWaitMs.get());
+        snapshot.put("rateLimited", rateLimited.get());
+        snapshot.put("serverErrors", serverErrors.get());
+        snapshot.put("retries", retries.get());
+        snapshot.put("rejected", rejected.get());
+        snapshot.put("failures", failures.get());
+        return snapshot;
+    }
+
+    /**
+     * Balde de tokens com reserva: o saldo pode ficar negativo e cada chamador espera a sua vez,
+     * o que mantém a ordem de chegada sem fila explícita.
+     */
+    private static class TokenBucket {
+        private final double perNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private long blockedUntil;
+        private long lastUsed = System.nanoTime();
+
+        private TokenBucket(double perSecond, double burst) {
+            this.perNano = Math.max(0.001, perSecond) / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = this.capacity;
+        }
+
+        private synchronized long reserve(long now) {
+            refill(now);
+            lastUsed = now;
+            tokens -= 1;
+            long wait = tokens >= 0 ? 0 : (long) Math.ceil(-tokens / perNano);
+            return Math.max(wait, blockedUntil - now);
+        }
+
+        private synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        private synchronized void blockFor(long nanos) {
+            blockedUntil = Math.max(blockedUntil, System.nanoTime() + nanos);
+        }
+
+        private synchronized boolean isIdleSince(long cutoff) {
+            return lastUsed - cutoff < 0 && blockedUntil - System.nanoTime() < 0;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * perNano);
+            lastRefill = now;
+        }
+    }
+}
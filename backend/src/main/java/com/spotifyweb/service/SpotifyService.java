@@ -1,8 +1,11 @@
 package com.spotifyweb.service;
 
+import com.spotifyweb.cache.SpotifyCatalogCache;
 import com.spotifyweb.dto.PlaylistDTO;
 import com.spotifyweb.dto.AlbumDTO;
 import com.spotifyweb.dto.AlbumDetailDTO;
+import com.spotifyweb.dto.LibrarySummaryDTO;
+import com.spotifyweb.dto.TrackDTO;
 import com.spotifyweb.entity.User;
 import com.spotifyweb.repository.UserRepository;
 import org.apache.hc.core5.http.ParseException;
@@ -11,8 +14,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import se.michaelthelin.spotify.IHttpManager;
 import se.michaelthelin.spotify.SpotifyApi;
-import se.michaelthelin.spotify.SpotifyHttpManager;
 import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
 import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
 import se.michaelthelin.spotify.model_objects.specification.*;
@@ -26,6 +29,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -34,9 +38,29 @@ public class SpotifyService {
 
     private static final Logger logger = LoggerFactory.getLogger(SpotifyService.class);
 
+    /**
+     * Recebe as faixas de uma página assim que ela chega do Spotify.
+     */
+    @FunctionalInterface
+    public interface TrackPageConsumer {
+        void accept(List<Track> tracks) throws IOException;
+    }
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private IHttpManager spotifyHttpManager;
+
+    @Autowired
+    private SpotifyPaginator paginator;
+
+    @Autowired
+    private SpotifyCatalogCache catalogCache;
+
+    @Autowired
+    private SpotifyTokenManager tokenManager;
+
     @Value("${spotify.redirect-uri}")
     private String redirectUri;
 
@@ -44,32 +68,27 @@ public class SpotifyService {
     private String scopes;
 
     /**
-     * Cria um cliente SpotifyApi autenticado para o usuário usando um HttpManager dedicado,
-     * evitando compartilhar a mesma conexão entre threads.
+     * Cria um cliente SpotifyApi autenticado para o usuário. O SpotifyApi é leve e guarda só os
+     * tokens do usuário; as conexões vêm do pool compartilhado em {@link IHttpManager}. O token
+     * vem do {@link SpotifyTokenManager}, que o renova antes de expirar.
      */
     private SpotifyApi getApiForUser(User user) {
         if (user.getAccessToken() == null) {
             throw new IllegalStateException("User does not have an access token. Please re-authenticate.");
         }
 
-        SpotifyHttpManager httpManager = new SpotifyHttpManager.Builder().build();
-
         SpotifyApi spotifyApi = new SpotifyApi.Builder()
-                .setHttpManager(httpManager)
+                .setHttpManager(spotifyHttpManager)
                 .setRedirectUri(URI.create(this.redirectUri))
-                .setAccessToken(user.getAccessToken())
-                .setRefreshToken(user.getRefreshToken())
+                .setAccessToken(tokenManager.getAccessToken(user))
+                .setRefreshToken(tokenManager.getRefreshToken(user))
                 .build();
         return spotifyApi;
     }
 
     public String getAuthorizationUrl(String clientId, String clientSecret, String state) {
         // This method is used at the start of the auth flow, so it doesn't need a user-specific API.
-        SpotifyApi spotifyApi = new SpotifyApi.Builder()
-                .setClientId(clientId)
-                .setClientSecret(clientSecret)
-                .setRedirectUri(URI.create(this.redirectUri))
-                .build();
+        SpotifyApi spotifyApi = getApiForClient(clientId, clientSecret);
         return spotifyApi.authorizationCodeUri().scope(scopes).state(state).build().execute().toString();
     }
 
@@ -78,41 +97,15 @@ public class SpotifyService {
         List<PlaylistDTO> playlists = new ArrayList<>();
         java.util.Set<String> seenIds = new java.util.HashSet<>();
 
-        fetchPlaylistsPage(spotifyApi.getListOfCurrentUsersPlaylists().limit(50).build().execute(), playlists, seenIds);
-
-        int offset = 50;
-        while (true) {
-            Paging<PlaylistSimplified> page = spotifyApi.getListOfCurrentUsersPlaylists()
-                    .limit(50)
-                    .offset(offset)
-                    .build()
-                    .execute();
-            if (page.getItems() == null || page.getItems().length == 0) {
-                break;
-            }
+        for (Paging<PlaylistSimplified> page : paginator.fetchAll(50, (offset, limit) ->
+                spotifyApi.getListOfCurrentUsersPlaylists().limit(limit).offset(offset).build().execute())) {
             fetchPlaylistsPage(page, playlists, seenIds);
-            if (page.getNext() == null) {
-                break;
-            }
-            offset += page.getLimit();
         }
 
         // fallback using explicit user id to ensure playlists seguidas appear
-        int fallbackOffset = 0;
-        while (true) {
-            Paging<PlaylistSimplified> page = spotifyApi.getListOfUsersPlaylists(user.getSpotifyId())
-                    .limit(50)
-                    .offset(fallbackOffset)
-                    .build()
-                    .execute();
-            if (page.getItems() == null || page.getItems().length == 0) {
-                break;
-            }
+        for (Paging<PlaylistSimplified> page : paginator.fetchAll(50, (offset, limit) ->
+                spotifyApi.getListOfUsersPlaylists(user.getSpotifyId()).limit(limit).offset(offset).build().execute())) {
             fetchPlaylistsPage(page, playlists, seenIds);
-            if (page.getNext() == null) {
-                break;
-            }
-            fallbackOffset += page.getLimit();
         }
         return playlists;
     }
@@ -136,26 +129,123 @@ public class SpotifyService {
         }
     }
 
+    /**
+     * Cliente não autenticado para o fluxo de autorização (troca do code por tokens).
+     */
+    public SpotifyApi getApiForClient(String clientId, String clientSecret) {
+        return new SpotifyApi.Builder()
+                .setHttpManager(spotifyHttpManager)
+                .setClientId(clientId)
+                .setClientSecret(clientSecret)
+                .setRedirectUri(URI.create(this.redirectUri))
+                .build();
+    }
+
+    /**
+     * Faixas da playlist. A lista é guardada em cache pelo snapshot_id atual, então só é buscada
+     * de novo quando a playlist muda. A lista devolvida é imutável.
+     */
     public List<Track> getPlaylistTracks(User user, String playlistId) throws IOException, SpotifyWebApiException, ParseException {
+        SpotifyCatalogCache.PlaylistHead head = getPlaylistHead(user, playlistId);
+        String cacheKey = head.getSnapshotId() != null
+                ? SpotifyCatalogCache.playlistTracksKey(playlistId, head.getSnapshotId())
+                : null;
+        if (cacheKey != null) {
+            List<Track> cached = catalogCache.playlistTracks().get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         SpotifyApi spotifyApi = getApiForUser(user);
         List<Track> tracks = new ArrayList<>();
-        Paging<PlaylistTrack> playlistTracks = spotifyApi.getPlaylistsItems(playlistId).build().execute();
-        for (PlaylistTrack playlistTrack : playlistTracks.getItems()) {
-            if (playlistTrack.getTrack() instanceof Track) tracks.add((Track) playlistTrack.getTrack());
+        for (Paging<PlaylistTrack> page : paginator.fetchAll(100, (offset, limit) ->
+                spotifyApi.getPlaylistsItems(playlistId).limit(limit).offset(offset).build().execute())) {
+            if (page.getItems() == null) continue;
+            for (PlaylistTrack playlistTrack : page.getItems()) {
+                if (playlistTrack != null && playlistTrack.getTrack() instanceof Track) tracks.add((Track) playlistTrack.getTrack());
+            }
+        }
+        List<Track> result = Collections.unmodifiableList(tracks);
+        if (cacheKey != null) {
+            catalogCache.playlistTracks().put(cacheKey, result);
         }
-        while (playlistTracks.getNext() != null) {
-            playlistTracks = spotifyApi.getPlaylistsItems(playlistId).offset(playlistTracks.getOffset() + playlistTracks.getLimit()).build().execute();
-            for (PlaylistTrack playlistTrack : playlistTracks.getItems()) {
-                if (playlistTrack.getTrack() instanceof Track) tracks.add((Track) playlistTrack.getTrack());
+        return result;
+    }
+
+    /**
+     * Entrega as faixas da playlist página por página, sem montar a lista inteira em memória.
+     * Se a lista já estiver no cache (mesmo snapshot_id) ela é usada direto.
+     */
+    public void streamPlaylistTracks(User user, String playlistId, TrackPageConsumer consumer) throws IOException, SpotifyWebApiException, ParseException {
+        SpotifyCatalogCache.PlaylistHead head = getPlaylistHead(user, playlistId);
+        if (head.getSnapshotId() != null) {
+            List<Track> cached = catalogCache.playlistTracks().get(SpotifyCatalogCache.playlistTracksKey(playlistId, head.getSnapshotId()));
+            if (cached != null) {
+                for (int start = 0; start < cached.size(); start += 100) {
+                    consumer.accept(cached.subList(start, Math.min(cached.size(), start + 100)));
+                }
+                return;
             }
         }
-        return tracks;
+
+        SpotifyApi spotifyApi = getApiForUser(user);
+        int offset = 0;
+        Paging<PlaylistTrack> page;
+        do {
+            page = spotifyApi.getPlaylistsItems(playlistId).limit(100).offset(offset).build().execute();
+            if (page.getItems() == null || page.getItems().length == 0) {
+                break;
+            }
+            List<Track> tracks = new ArrayList<>(page.getItems().length);
+            for (PlaylistTrack playlistTrack : page.getItems()) {
+                if (playlistTrack != null && playlistTrack.getTrack() instanceof Track) tracks.add((Track) playlistTrack.getTrack());
+            }
+            consumer.accept(tracks);
+            offset += page.getItems().length;
+        } while (page.getNext() != null);
+    }
+
+    /**
+     * Mesmo que {@link #streamPlaylistTracks}, para as músicas curtidas.
+     */
+    public void streamLikedTracks(User user, TrackPageConsumer consumer) throws IOException, SpotifyWebApiException, ParseException {
+        SpotifyApi spotifyApi = getApiForUser(user);
+        int offset = 0;
+        Paging<SavedTrack> page;
+        do {
+            page = spotifyApi.getUsersSavedTracks().limit(50).offset(offset).build().execute();
+            if (page.getItems() == null || page.getItems().length == 0) {
+                break;
+            }
+            List<Track> tracks = new ArrayList<>(page.getItems().length);
+            for (SavedTrack savedTrack : page.getItems()) {
+                if (savedTrack != null && savedTrack.getTrack() != null) tracks.add(savedTrack.getTrack());
+            }
+            consumer.accept(tracks);
+            offset += page.getItems().length;
+        } while (page.getNext() != null);
+    }
+
+    /**
+     * Nome e snapshot_id da playlist, consultados só com esses dois campos e com cache curto
+     * por usuário (o acesso a playlists privadas depende do token).
+     */
+    public SpotifyCatalogCache.PlaylistHead getPlaylistHead(User user, String playlistId) throws IOException, SpotifyWebApiException, ParseException {
+        String key = SpotifyCatalogCache.playlistHeadKey(user.getId(), playlistId);
+        SpotifyCatalogCache.PlaylistHead head = catalogCache.playlistHeads().get(key);
+        if (head == null) {
+            Playlist playlist = getApiForUser(user).getPlaylist(playlistId).fields("name,snapshot_id").build().execute();
+            head = new SpotifyCatalogCache.PlaylistHead(playlist.getName(), playlist.getSnapshotId());
+            catalogCache.playlistHeads().put(key, head);
+        }
+        return head;
     }
 
     public String getPlaylistName(User user, String playlistId) {
         try {
-            Playlist playlist = getApiForUser(user).getPlaylist(playlistId).build().execute();
-            return playlist.getName();
+            String name = getPlaylistHead(user, playlistId).getName();
+            return name != null ? name : playlistId;
         } catch (Exception e) {
             logger.warn("Could not fetch playlist name for {}: {}", playlistId, e.getMessage());
             return playlistId;
@@ -165,21 +255,42 @@ public class SpotifyService {
     public List<Track> getLikedTracks(User user) throws IOException, SpotifyWebApiException, ParseException {
         SpotifyApi spotifyApi = getApiForUser(user);
         List<Track> tracks = new ArrayList<>();
-        Paging<SavedTrack> savedTracks = spotifyApi.getUsersSavedTracks().build().execute();
-        for (SavedTrack savedTrack : savedTracks.getItems()) {
-            tracks.add(savedTrack.getTrack());
-        }
-        while (savedTracks.getNext() != null) {
-            savedTracks = spotifyApi.getUsersSavedTracks().offset(savedTracks.getOffset() + savedTracks.getLimit()).build().execute();
-            for (SavedTrack savedTrack : savedTracks.getItems()) {
-                tracks.add(savedTrack.getTrack());
+        for (Paging<SavedTrack> page : paginator.fetchAll(50, (offset, limit) ->
+                spotifyApi.getUsersSavedTracks().limit(limit).offset(offset).build().execute())) {
+            if (page.getItems() == null) continue;
+            for (SavedTrack savedTrack : page.getItems()) {
+                if (savedTrack != null) tracks.add(savedTrack.getTrack());
             }
         }
         return tracks;
     }
 
+    /**
+     * Totais de curtidas e top músicas usando só o campo {@code total} de uma página com
+     * limit=1, em vez de paginar a biblioteca inteira. Fica em cache por pouco tempo.
+     */
+    public LibrarySummaryDTO getLibrarySummary(User user) throws IOException, SpotifyWebApiException, ParseException {
+        LibrarySummaryDTO summary = catalogCache.librarySummaries().get(user.getId());
+        if (summary == null) {
+            SpotifyApi spotifyApi = getApiForUser(user);
+            Paging<SavedTrack> liked = spotifyApi.getUsersSavedTracks().limit(1).build().execute();
+            Paging<Track> top = spotifyApi.getUsersTopTracks().limit(1).build().execute();
+            summary = new LibrarySummaryDTO(
+                    liked.getTotal() != null ? liked.getTotal() : 0,
+                    top.getTotal() != null ? top.getTotal() : 0
+            );
+            catalogCache.librarySummaries().put(user.getId(), summary);
+        }
+        return summary;
+    }
+
     public Album getAlbum(User user, String albumId) throws IOException, SpotifyWebApiException, ParseException {
-        return getApiForUser(user).getAlbum(albumId).build().execute();
+        Album album = catalogCache.albums().get(albumId);
+        if (album == null) {
+            album = getApiForUser(user).getAlbum(albumId).build().execute();
+            catalogCache.albums().put(albumId, album);
+        }
+        return album;
     }
 
     public List<Track> getAlbumTracks(User user, String albumId) throws IOException, SpotifyWebApiException, ParseException {
@@ -188,19 +299,19 @@ public class SpotifyService {
     }
 
     public List<Track> getAlbumTracks(User user, Album album) throws IOException, SpotifyWebApiException, ParseException {
+        List<Track> cached = catalogCache.albumTracks().get(album.getId());
+        if (cached != null) {
+            return cached;
+        }
         SpotifyApi spotifyApi = getApiForUser(user);
         List<Track> tracks = new ArrayList<>();
-        Paging<TrackSimplified> page = spotifyApi.getAlbumsTracks(album.getId()).limit(50).build().execute();
-        appendAlbumTracks(album, tracks, page);
-        while (page.getNext() != null) {
-            page = spotifyApi.getAlbumsTracks(album.getId())
-                    .limit(50)
-                    .offset(page.getOffset() + page.getLimit())
-                    .build()
-                    .execute();
+        for (Paging<TrackSimplified> page : paginator.fetchAll(50, (offset, limit) ->
+                spotifyApi.getAlbumsTracks(album.getId()).limit(limit).offset(offset).build().execute())) {
             appendAlbumTracks(album, tracks, page);
         }
-        return tracks;
+        List<Track> result = Collections.unmodifiableList(tracks);
+        catalogCache.albumTracks().put(album.getId(), result);
+        return result;
     }
 
     public List<Album> getUserAlbums(User user) throws IOException, SpotifyWebApiException, ParseException {
@@ -208,18 +319,8 @@ public class SpotifyService {
         List<Album> albums = new ArrayList<>();
         java.util.Set<String> seenIds = new java.util.HashSet<>();
 
-        Paging<SavedAlbum> page = spotifyApi.getCurrentUsersSavedAlbums().limit(50).build().execute();
-        appendSavedAlbums(albums, seenIds, page);
-
-        while (page.getNext() != null) {
-            page = spotifyApi.getCurrentUsersSavedAlbums()
-                    .limit(50)
-                    .offset(page.getOffset() + page.getLimit())
-                    .build()
-                    .execute();
-            if (page.getItems() == null || page.getItems().length == 0) {
-                break;
-            }
+        for (Paging<SavedAlbum> page : paginator.fetchAll(50, (offset, limit) ->
+                spotifyApi.getCurrentUsersSavedAlbums().limit(limit).offset(offset).build().execute())) {
             appendSavedAlbums(albums, seenIds, page);
         }
         return albums;
@@ -243,7 +344,7 @@ public class SpotifyService {
                         t.getId(),
                         t.getName(),
                         t.getDurationMs(),
-                        Arrays.stream(t.getArtists()).map(ArtistSimplified::getName).collect(Collectors.joining(", "))
+                        TrackDTO.joinArtists(t.getArtists())
                 ))
                 .collect(Collectors.toList());
 
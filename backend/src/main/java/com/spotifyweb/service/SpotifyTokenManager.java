@@ -0,0 +1,267 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.User;
+import com.spotifyweb.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.IHttpManager;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.exceptions.detailed.BadRequestException;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém o access token de cada usuário válido.
+ *
+ * O token atual fica em memória por id de usuário, então objetos {@link User} antigos (do cache
+ * de principals ou presos a um job de download longo) continuam recebendo o token renovado.
+ * Tokens de usuários ativos são renovados em segundo plano antes de expirar; se uma requisição
+ * ainda encontrar um token quase vencido, renova na hora. Renovações simultâneas do mesmo
+ * usuário viram uma só chamada ao Spotify, e o resultado é gravado com um UPDATE só das
+ * colunas de token.
+ */
+@Component
+public class SpotifyTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpotifyTokenManager.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private IHttpManager spotifyHttpManager;
+
+    @Value("${spotify.redirect-uri}")
+    private String redirectUri;
+
+    // Abaixo dessa validade a requisição renova o token antes de usá-lo
+    @Value("${spotify.token.min-validity-ms:60000}")
+    private long minValidityMs;
+
+    // Janela em que a renovação em segundo plano se antecipa à expiração
+    @Value("${spotify.token.refresh-ahead-ms:600000}")
+    private long refreshAheadMs;
+
+    // Só usuários que usaram a API nesse intervalo são renovados em segundo plano
+    @Value("${spotify.token.active-window-ms:7200000}")
+    private long activeWindowMs;
+
+    @Value("${spotify.token.refresh-timeout-ms:30000}")
+    private long refreshTimeoutMs;
+
+    private final Map<Long, TokenState> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<TokenState>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong joinedRefreshes = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+
+    /**
+     * Access token válido para o usuário, renovando-o antes se estiver perto de expirar.
+     */
+    public String getAccessToken(User user) {
+        if (user.getId() == null) {
+            return user.getAccessToken();
+        }
+        TokenState state = track(user);
+        state.lastUsedAt = System.currentTimeMillis();
+        if (state.expiresWithin(minValidityMs) && state.canRefresh()) {
+            state = refresh(user.getId());
+        }
+        return state.accessToken;
+    }
+
+    /**
+     * Refresh token mais recente conhecido para o usuário.
+     */
+    public String getRefreshToken(User user) {
+        TokenState state = user.getId() != null ? tokens.get(user.getId()) : null;
+        return state != null && state.refreshToken != null ? state.refreshToken : user.getRefreshToken();
+    }
+
+    /**
+     * Descarta o token em memória (por exemplo após um novo login), para que o próximo uso
+     * parta do que está gravado no usuário.
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            tokens.remove(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spotify.token.refresh-check-interval-ms:60000}")
+    public void refreshExpiringTokens() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, TokenState> entry : tokens.entrySet()) {
+            TokenState state = entry.getValue();
+            if (now - state.lastUsedAt > activeWindowMs) {
+                tokens.remove(entry.getKey(), state);
+                continue;
+            }
+            if (!state.canRefresh() || !state.expiresWithin(refreshAheadMs)) {
+                continue;
+            }
+            try {
+                refresh(entry.getKey());
+                backgroundRefreshes.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.warn("Background token refresh failed for user {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("trackedUsers", tokens.size());
+        snapshot.put("refreshesInFlight", inFlight.size());
+        snapshot.put("refreshes", refreshes.get());
+        snapshot.put("backgroundRefreshes", backgroundRefreshes.get());
+        snapshot.put("joinedRefreshes", joinedRefreshes.get());
+        snapshot.put("refreshFailures", refreshFailures.get());
+        return snapshot;
+    }
+
+    // Passa a acompanhar o usuário; um token mais novo vindo do banco (novo login) substitui o da memória
+    private TokenState track(User user) {
+        return tokens.compute(user.getId(), (id, current) -> {
+            if (current == null || isNewer(user, current)) {
+                return new TokenState(user.getAccessToken(), user.getRefreshToken(), user.getTokenExpiresAt(),
+                        user.getClientId(), user.getClientSecret());
+            }
+            return current;
+        });
+    }
+
+    private boolean isNewer(User user, TokenState current) {
+        if (Objects.equals(user.getAccessToken(), current.accessToken)) {
+            return false;
+        }
+        return current.expiresAt == null
+                || (user.getTokenExpiresAt() != null && user.getTokenExpiresAt().isAfter(current.expiresAt));
+    }
+
+    /**
+     * Renova o token do usuário. Quem chega enquanto outra thread já está renovando espera o
+     * mesmo resultado em vez de fazer outra chamada.
+     */
+    private TokenState refresh(Long userId) {
+        CompletableFuture<TokenState> created = new CompletableFuture<>();
+        CompletableFuture<TokenState> existing = inFlight.putIfAbsent(userId, created);
+        if (existing != null) {
+            joinedRefreshes.incrementAndGet();
+            return await(existing);
+        }
+        try {
+            created.complete(doRefresh(userId));
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inFlight.remove(userId, created);
+        }
+        return await(created);
+    }
+
+    private TokenState doRefresh(Long userId) {
+        TokenState current = tokens.get(userId);
+        if (current == null) {
+            throw new IllegalStateException("No Spotify token tracked for user " + userId);
+        }
+        // Outra thread pode ter acabado de renovar
+        if (!current.expiresWithin(refreshAheadMs)) {
+            return current;
+        }
+        refreshes.incrementAndGet();
+        try {
+            SpotifyApi spotifyApi = new SpotifyApi.Builder()
+                    .setHttpManager(spotifyHttpManager)
+                    .setClientId(current.clientId)
+                    .setClientSecret(current.clientSecret)
+                    .setRedirectUri(URI.create(redirectUri))
+                    .setRefreshToken(current.refreshToken)
+                    .build();
+            AuthorizationCodeCredentials credentials = spotifyApi.authorizationCodeRefresh().build().execute();
+
+            String refreshToken = credentials.getRefreshToken() != null ? credentials.getRefreshToken() : current.refreshToken;
+            LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(credentials.getExpiresIn());
+            TokenState refreshed = new TokenState(credentials.getAccessToken(), refreshToken, expiresAt,
+                    current.clientId, current.clientSecret);
+            refreshed.lastUsedAt = current.lastUsedAt;
+            tokens.put(userId, refreshed);
+
+            userRepository.updateTokens(userId, refreshed.accessToken, credentials.getRefreshToken(), expiresAt, LocalDateTime.now());
+            userService.evictPrincipal(userId);
+            logger.debug("Refreshed Spotify token for user {} (expires at {})", userId, expiresAt);
+            return refreshed;
+        } catch (BadRequestException | UnauthorizedException e) {
+            // Refresh token revogado ou credenciais do app trocadas: só um novo login resolve
+            refreshFailures.incrementAndGet();
+            tokens.remove(userId, current);
+            throw new IllegalStateException("Spotify session expired. Please re-authenticate.", e);
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            throw new IllegalStateException("Failed to refresh Spotify token: " + e.getMessage(), e);
+        }
+    }
+
+    private TokenState await(CompletableFuture<TokenState> future) {
+        try {
+            return future.get(refreshTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while refreshing Spotify token", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to refresh Spotify token", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for Spotify token refresh", e);
+        }
+    }
+
+    private static class TokenState {
+        private final String accessToken;
+        private final String refreshToken;
+        private final LocalDateTime expiresAt;
+        private final String clientId;
+        private final String clientSecret;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private TokenState(String accessToken, String refreshToken, LocalDateTime expiresAt, String clientId, String clientSecret) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAt = expiresAt;
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+        }
+
+        // Sem validade conhecida (logins anteriores a este controle) não há como antecipar
+        private boolean expiresWithin(long windowMs) {
+            return expiresAt != null && expiresAt.isBefore(LocalDateTime.now().plusNanos(windowMs * 1_000_000L));
+        }
+
+        private boolean canRefresh() {
+            return refreshToken != null && clientId != null && clientSecret != null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.repository.TrackResolutionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Guarda qual vídeo do YouTube foi baixado para cada faixa do Spotify, para que downloads
+ * seguintes da mesma faixa pulem a busca. Se o vídeo guardado falhar, a resolução é
+ * descartada e a faixa volta a ser buscada.
+ */
+@Service
+public class TrackResolutionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackResolutionService.class);
+    private static final Pattern VIDEO_ID = Pattern.compile("[A-Za-z0-9_-]{11}");
+
+    @Autowired
+    private TrackResolutionRepository trackResolutionRepository;
+
+    @Value("${download.resolution-cache.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+
+    public static boolean isVideoId(String value) {
+        return value != null && VIDEO_ID.matcher(value).matches();
+    }
+
+    public Optional<String> findVideoId(String spotifyTrackId) {
+        if (!enabled || spotifyTrackId == null) {
+            return Optional.empty();
+        }
+        Optional<String> videoId = trackResolutionRepository.findBySpotifyTrackId(spotifyTrackId).map(resolution -> {
+            trackResolutionRepository.registerHit(resolution.getId(), LocalDateTime.now());
+            return resolution.getVideoId();
+        });
+        (videoId.isPresent() ? hits : misses).incrementAndGet();
+        return videoId;
+    }
+
+    public void record(String spotifyTrackId, String videoId) {
+        if (!enabled || spotifyTrackId == null || !isVideoId(videoId)) {
+            return;
+        }
+        try {
+            trackResolutionRepository.upsert(spotifyTrackId, videoId, LocalDateTime.now());
+            recorded.incrementAndGet();
+        } catch (Exception e) {
+            logger.warn("Could not record resolution {} -> {}: {}", spotifyTrackId, videoId, e.getMessage());
+        }
+    }
+
+    public void invalidate(String spotifyTrackId, String videoId) {
+        if (!enabled || spotifyTrackId == null) {
+            return;
+        }
+        if (trackResolutionRepository.invalidate(spotifyTrackId, videoId) > 0) {
+            invalidated.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("hits", hits.get());
+        snapshot.put("misses", misses.get());
+        snapshot.put("recorded", recorded.get());
+        snapshot.put("invalidated", invalidated.get());
+        return snapshot;
+    }
+}
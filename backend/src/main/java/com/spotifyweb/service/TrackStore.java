@@ -0,0 +1,232 @@
+package com.spotifyweb.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Armazenamento das faixas indexado pelo id da faixa no Spotify:
+ * {@code <download.store.path>/<ab>/<trackId>.mp3}.
+ *
+ * Cada faixa é baixada uma única vez; as pastas de playlists e álbuns recebem um hard link
+ * para o arquivo do store (ou um link simbólico, ou uma cópia, quando o sistema de arquivos
+ * não permite). Downloads simultâneos da mesma faixa nesta JVM esperam o primeiro terminar.
+ *
+ * O download vai para uma pasta temporária única ao lado do destino e só é movido (de forma
+ * atômica) para o store depois de concluído; um arquivo no store é sempre uma faixa completa,
+ * mesmo com o processo morto no meio ou com outro nó baixando a mesma faixa.
+ */
+@Component
+public class TrackStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackStore.class);
+
+    @FunctionalInterface
+    public interface Fetcher {
+        void fetch(Path target) throws IOException, InterruptedException;
+    }
+
+    @Value("${download.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${download.store.path:${download.base-path}/.store}")
+    private String storePath;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong joinedFetches = new AtomicLong();
+    private final AtomicLong adopted = new AtomicLong();
+    private final AtomicLong hardLinks = new AtomicLong();
+    private final AtomicLong symbolicLinks = new AtomicLong();
+    private final AtomicLong copies = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Garante a faixa em {@code target}: baixa para o store com {@code fetcher} se ainda não
+     * estiver lá e depois cria o link.
+     */
+    public void materialize(String trackId, Path target, Fetcher fetcher) throws IOException, InterruptedException {
+        Path stored = pathFor(trackId);
+        if (Files.exists(stored)) {
+            hits.incrementAndGet();
+        } else {
+            fetchOnce(trackId, stored, fetcher);
+        }
+        link(stored, target);
+    }
+
+    /**
+     * Aproveita um arquivo que já existe numa pasta de playlist (baixado antes do store) como
+     * cópia da faixa no store. Só com hard link, para não duplicar espaço.
+     */
+    public void adopt(String trackId, Path existing) {
+        if (!enabled || trackId == null) {
+            return;
+        }
+        Path stored = pathFor(trackId);
+        if (Files.exists(stored)) {
+            return;
+        }
+        try {
+            Files.createDirectories(stored.getParent());
+            Files.createLink(stored, existing);
+            adopted.incrementAndGet();
+        } catch (FileAlreadyExistsException ignored) {
+            // outra thread adotou antes
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Could not adopt {} into track store: {}", existing, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("path", storePath);
+        snapshot.put("hits", hits.get());
+        snapshot.put("fetches", fetches.get());
+        snapshot.put("joinedFetches", joinedFetches.get());
+        snapshot.put("adopted", adopted.get());
+        snapshot.put("hardLinks", hardLinks.get());
+        snapshot.put("symbolicLinks", symbolicLinks.get());
+        snapshot.put("copies", copies.get());
+        snapshot.put("fetchesInFlight", inFlight.size());
+        return snapshot;
+    }
+
+    Path pathFor(String trackId) {
+        String shard = trackId.length() >= 2 ? trackId.substring(0, 2).toLowerCase(Locale.ROOT) : "_";
+        return Paths.get(storePath, shard, trackId + ".mp3");
+    }
+
+    private void fetchOnce(String trackId, Path stored, Fetcher fetcher) throws IOException, InterruptedException {
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(trackId, created);
+        if (existing != null) {
+            joinedFetches.incrementAndGet();
+            await(existing);
+            return;
+        }
+        try {
+            if (!Files.exists(stored)) {
+                Files.createDirectories(stored.getParent());
+                fetches.incrementAndGet();
+                fetchAtomically(stored, fetcher);
+            }
+            created.complete(null);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(trackId, created);
+        }
+    }
+
+    /**
+     * Executa {@code fetcher} numa pasta temporária única ao lado de {@code target} e move o
+     * resultado para {@code target}. A pasta é apagada no fim, com tudo o que sobrou nela: o
+     * yt-dlp troca a extensão do {@code -o} pela do áudio original enquanto baixa, então os
+     * {@code .webm}/{@code .part} de um download ou conversão que falhou também vão embora.
+     */
+    static void fetchAtomically(Path target, Fetcher fetcher) throws IOException, InterruptedException {
+        String name = target.getFileName().toString();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path tempDir = target.resolveSibling("." + name + "." + UUID.randomUUID() + ".tmp");
+        // Mesmo nome do destino: o yt-dlp usa o nome do -o para o arquivo convertido
+        Path temp = Files.createDirectory(tempDir).resolve(name);
+        try {
+            fetcher.fetch(temp);
+            if (!Files.isRegularFile(temp) || Files.size(temp) == 0) {
+                throw new IOException("Arquivo não encontrado após o download: " + target);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteRecursively(tempDir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temporary file {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (NoSuchFileException e) {
+            // já removida
+        } catch (IOException e) {
+            logger.warn("Could not clean temporary directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void await(CompletableFuture<Void> future) throws IOException, InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void link(Path stored, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createLink(target, stored);
+            hardLinks.incrementAndGet();
+            return;
+        } catch (FileAlreadyExistsException e) {
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Hard link {} -> {} failed: {}", target, stored, e.getMessage());
+        }
+        try {
+            Files.createSymbolicLink(target, stored.toAbsolutePath());
+            symbolicLinks.incrementAndGet();
+            return;
+        } catch (FileAlreadyExistsException e) {
+            return;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Symbolic link {} -> {} failed: {}", target, stored, e.getMessage());
+        }
+        Files.copy(stored, target);
+        copies.incrementAndGet();
+    }
+}
@@ -1,8 +1,13 @@
 package com.spotifyweb.service;
 
+import com.spotifyweb.cache.TtlCache;
 import com.spotifyweb.entity.User;
 import com.spotifyweb.repository.UserRepository;
+import com.spotifyweb.security.AuthenticatedUser;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +15,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -20,6 +26,23 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${auth.principal-cache-ttl-ms:30000}")
+    private long principalCacheTtlMs;
+
+    @Value("${auth.principal-cache-size:10000}")
+    private long principalCacheSize;
+
+    /**
+     * Usuários resolvidos pelo filtro JWT, por id. Evita uma consulta (mais a coleção de roles)
+     * a cada requisição; qualquer gravação do usuário invalida a entrada.
+     */
+    private TtlCache<Long, User> principalCache;
+
+    @PostConstruct
+    void initPrincipalCache() {
+        principalCache = new TtlCache<>("principals", principalCacheSize, principalCacheTtlMs);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findBySpotifyId(username)
@@ -40,7 +63,52 @@ public class UserService implements UserDetailsService {
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        evictPrincipal(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Resolve o usuário a partir das claims do JWT. Com o claim {@code userId} a busca é por
+     * chave primária e passa pelo cache; tokens antigos sem o claim caem na busca por spotifyId.
+     */
+    public Optional<User> findAuthenticatedUser(Long userId, String subject) {
+        if (userId == null) {
+            return userRepository.findBySpotifyId(subject).or(() -> userRepository.findByEmail(subject));
+        }
+        User cached = principalCache.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(userId)
+                .filter(found -> subject == null || subject.equals(found.getSpotifyId()) || subject.equals(found.getEmail()));
+        user.ifPresent(found -> principalCache.put(userId, found));
+        return user;
+    }
+
+    /**
+     * Usuário da requisição atual. Normalmente vem pronto no principal montado pelo filtro JWT.
+     */
+    public User getAuthenticatedUser(Authentication authentication) {
+        return findAuthenticatedUser(authentication)
+                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database: "
+                        + (authentication != null ? authentication.getName() : null)));
+    }
+
+    public Optional<User> findAuthenticatedUser(Authentication authentication) {
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return Optional.of(principal.getUser());
+        }
+        return findBySpotifyId(authentication.getName());
+    }
+
+    public void evictPrincipal(Long userId) {
+        if (userId != null) {
+            principalCache.invalidate(userId);
+        }
     }
 
     public Optional<User> findBySpotifyId(String spotifyId) {
@@ -51,7 +119,12 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
 
-    public User createOrUpdateUser(String spotifyId, String displayName, String email, String accessToken, String refreshToken, String profileImageUrl) {
+    /**
+     * Cria ou atualiza o usuário após o login, guardando os tokens, a validade do access token
+     * e as credenciais do app usadas no login (necessárias para renovar o token depois).
+     */
+    public User createOrUpdateUser(String spotifyId, String displayName, String email, String accessToken, String refreshToken,
+                                   LocalDateTime tokenExpiresAt, String clientId, String clientSecret, String profileImageUrl) {
         Optional<User> existingUser = findBySpotifyId(spotifyId);
 
         if (existingUser.isPresent()) {
@@ -60,11 +133,17 @@ public class UserService implements UserDetailsService {
             user.setEmail(email);
             user.setAccessToken(accessToken);
             user.setRefreshToken(refreshToken);
+            user.setTokenExpiresAt(tokenExpiresAt);
+            user.setClientId(clientId);
+            user.setClientSecret(clientSecret);
             user.setProfileImageUrl(profileImageUrl);
             return saveUser(user);
         } else {
             User newUser = new User(spotifyId, displayName, email, accessToken);
             newUser.setRefreshToken(refreshToken);
+            newUser.setTokenExpiresAt(tokenExpiresAt);
+            newUser.setClientId(clientId);
+            newUser.setClientSecret(clientSecret);
             newUser.setProfileImageUrl(profileImageUrl);
             return saveUser(newUser);
         }
@@ -0,0 +1,283 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.DownloadTrack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Escolhe o vídeo do YouTube de uma faixa sem baixar nada: uma busca só de metadados
+ * ({@code ytsearchN:} com {@code --flat-playlist}) traz {@code download.match.candidates}
+ * resultados, que recebem uma nota pela duração (comparada com a do Spotify), pelo título e
+ * pelo artista. Versões que a faixa não pede (ao vivo, cover, remix, karaokê...) perdem pontos.
+ * Candidatos com menos da metade das palavras do título não são aceitos, por mais que a duração
+ * bata. Só o melhor candidato, se passar de {@code download.match.min-score}, é baixado.
+ */
+@Component
+public class YouTubeMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(YouTubeMatcher.class);
+
+    private static final double DURATION_WEIGHT = 0.45;
+    private static final double TITLE_WEIGHT = 0.35;
+    private static final double ARTIST_WEIGHT = 0.20;
+    private static final double TOPIC_CHANNEL_BONUS = 0.10;
+    private static final double UNWANTED_VERSION_PENALTY = 0.30;
+    // Fração mínima das palavras do título que o candidato precisa ter; só a duração não basta
+    private static final double MIN_TITLE_COVERAGE = 0.5;
+    // Diferença de duração considerada exata (intro/silêncio do vídeo)
+    private static final double EXACT_DURATION_SECONDS = 3;
+
+    // Cada grupo é uma versão (com sinônimos); só penaliza se a faixa do Spotify não for dessa versão
+    private static final List<List<String>> UNWANTED_VERSIONS = List.of(
+            List.of("ao vivo", "live", "en vivo"),
+            List.of("acustico", "acoustic"),
+            List.of("cover"),
+            List.of("karaoke"),
+            List.of("instrumental"),
+            List.of("remix"),
+            List.of("sped up", "slowed", "nightcore", "8d"),
+            List.of("reaction", "react"),
+            List.of("tutorial", "aula")
+    );
+    private static final Pattern SUFFIX = Pattern.compile("\\s*(\\(.*?\\)|\\[.*?]|\\s-\\s.*)");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private YtDlpRunner ytDlpRunner;
+
+    @Autowired
+    private ProcessPermits processPermits;
+
+    @Value("${download.match.candidates:5}")
+    private int candidates;
+
+    @Value("${download.match.min-score:0.55}")
+    private double minScore;
+
+    @Value("${download.match.duration-tolerance-seconds:30}")
+    private double durationToleranceSeconds;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong candidatesSeen = new AtomicLong();
+    private final AtomicLong firstResultChosen = new AtomicLong();
+
+    /**
+     * Busca os candidatos da faixa e devolve o id do melhor.
+     *
+     * @throws IOException se a busca falhar ou nenhum candidato atingir a nota mínima
+     */
+    public String findBestMatch(DownloadTrack item) throws IOException, InterruptedException {
+        String query = buildSearchQuery(item.getArtistName(), item.getTrackName());
+        logger.info("Buscando candidatos no YouTube: {}", query);
+        searches.incrementAndGet();
+        YtDlpRunner.Result result = processPermits.run(() -> ytDlpRunner.run(List.of(
+                "--flat-playlist",
+                "--skip-download",
+                "--no-warnings",
+                "--print", "%(id)s\t%(duration)s\t%(channel,uploader)s\t%(title)s",
+                query
+        )));
+
+        List<Candidate> found = parseCandidates(result.getOutput());
+        if (found.isEmpty()) {
+            rejected.incrementAndGet();
+            throw new IOException("Nenhum vídeo encontrado para " + query
+                    + (result.getExitCode() != 0 ? ": " + result.getOutput() : ""));
+        }
+        candidatesSeen.addAndGet(found.size());
+
+        Candidate best = null;
+        Candidate bestOverall = null;
+        int bestIndex = -1;
+        for (int i = 0; i < found.size(); i++) {
+            Candidate candidate = found.get(i);
+            score(item, candidate);
+            if (bestOverall == null || candidate.score > bestOverall.score) {
+                bestOverall = candidate;
+            }
+            if (candidate.titleMatches && (best == null || candidate.score > best.score)) {
+                best = candidate;
+                bestIndex = i;
+            }
+        }
+        if (best == null || best.score < minScore) {
+            rejected.incrementAndGet();
+            Candidate reported = best != null ? best : bestOverall;
+            throw new IOException(String.format(Locale.ROOT,
+                    "Nenhum vídeo compatível para %s (melhor: \"%s\", nota %.2f)", query, reported.title, reported.score));
+        }
+        matched.incrementAndGet();
+        if (bestIndex == 0) {
+            firstResultChosen.incrementAndGet();
+        }
+        logger.debug("Escolhido {} \"{}\" (nota {}) entre {} candidatos", best.id, best.title,
+                String.format(Locale.ROOT, "%.2f", best.score), found.size());
+        return best.id;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("candidates", candidates);
+        snapshot.put("minScore", minScore);
+        snapshot.put("searches", searches.get());
+        snapshot.put("matched", matched.get());
+        snapshot.put("rejected", rejected.get());
+        long done = matched.get() + rejected.get();
+        snapshot.put("avgCandidates", done > 0 ? Math.round((double) candidatesSeen.get() / done * 10) / 10.0 : 0);
+        // Quantas vezes o primeiro resultado (o que o ytsearch1 baixaria) foi o escolhido
+        snapshot.put("firstResultChosen", firstResultChosen.get());
+        return snapshot;
+    }
+
+    String buildSearchQuery(String artistName, String trackName) {
+        StringBuilder builder = new StringBuilder("ytsearch").append(Math.max(1, candidates)).append(':');
+        if (artistName != null && !artistName.isBlank()) {
+            builder.append('"').append(artistName.trim()).append('"');
+        }
+        if (trackName != null && !trackName.isBlank()) {
+            String core = coreTitle(trackName);
+            if (builder.charAt(builder.length() - 1) != ':') {
+                builder.append(' ');
+            }
+            builder.append('"').append(core).append('"');
+            // "Música - Ao Vivo" busca "Música" entre aspas e "ao vivo" solto; sufixos como
+            // "Remastered 2011" ficam de fora, porque só atrapalham a busca
+            String trimmed = trackName.trim();
+            String suffix = normalize(trimmed.startsWith(core) ? trimmed.substring(core.length()) : "");
+            for (List<String> version : UNWANTED_VERSIONS) {
+                version.stream().filter(word -> containsWord(suffix, word)).findFirst()
+                        .ifPresent(word -> builder.append(' ').append(word));
+            }
+        }
+        return builder.toString();
+    }
+
+    private void score(DownloadTrack item, Candidate candidate) {
+        double durationScore = 0.5;
+        if (item.getDurationMs() != null && item.getDurationMs() > 0 && candidate.durationSeconds > 0) {
+            double diff = Math.abs(candidate.durationSeconds - item.getDurationMs() / 1000.0);
+            durationScore = diff <= EXACT_DURATION_SECONDS
+                    ? 1.0
+                    : Math.max(0, 1 - (diff - EXACT_DURATION_SECONDS) / durationToleranceSeconds);
+        }
+
+        Set<String> titleTokens = tokens(candidate.title);
+        Set<String> channelTokens = tokens(candidate.channel);
+        double titleScore = coverage(tokens(coreTitle(item.getTrackName())), titleTokens);
+        candidate.titleMatches = titleScore >= MIN_TITLE_COVERAGE;
+
+        Set<String> artistTokens = tokens(item.getArtistName());
+        Set<String> artistSources = new LinkedHashSet<>(titleTokens);
+        artistSources.addAll(channelTokens);
+        double artistScore = artistTokens.isEmpty() ? 0.5 : coverage(artistTokens, artistSources);
+
+        double score = DURATION_WEIGHT * durationScore + TITLE_WEIGHT * titleScore + ARTIST_WEIGHT * artistScore;
+
+        // Canais "Artista - Topic" publicam o áudio oficial do lançamento
+        if (candidate.channel != null && candidate.channel.endsWith(" - Topic") && artistScore > 0.5) {
+            score += TOPIC_CHANNEL_BONUS;
+        }
+        String wanted = normalize(item.getTrackName());
+        String offered = normalize(candidate.title);
+        for (List<String> version : UNWANTED_VERSIONS) {
+            boolean inOffered = version.stream().anyMatch(word -> containsWord(offered, word));
+            boolean inWanted = version.stream().anyMatch(word -> containsWord(wanted, word));
+            if (inOffered && !inWanted) {
+                score -= UNWANTED_VERSION_PENALTY;
+            }
+        }
+        candidate.score = score;
+    }
+
+    private List<Candidate> parseCandidates(String output) {
+        List<Candidate> found = new ArrayList<>();
+        if (output == null) {
+            return found;
+        }
+        for (String line : output.split("\\R")) {
+            String[] fields = line.split("\t", 4);
+            if (fields.length < 4 || !TrackResolutionService.isVideoId(fields[0].trim())) {
+                continue;
+            }
+            Candidate candidate = new Candidate();
+            candidate.id = fields[0].trim();
+            candidate.durationSeconds = parseSeconds(fields[1]);
+            candidate.channel = "NA".equals(fields[2]) ? null : fields[2];
+            candidate.title = fields[3];
+            found.add(candidate);
+        }
+        return found;
+    }
+
+    private double parseSeconds(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String coreTitle(String trackName) {
+        if (trackName == null) {
+            return "";
+        }
+        String core = SUFFIX.matcher(trackName).replaceAll("").trim();
+        return core.isEmpty() ? trackName.trim() : core;
+    }
+
+    private double coverage(Set<String> expected, Set<String> actual) {
+        if (expected.isEmpty()) {
+            return 0;
+        }
+        long present = expected.stream().filter(actual::contains).count();
+        return (double) present / expected.size();
+    }
+
+    private boolean containsWord(String text, String phrase) {
+        return (" " + text + " ").contains(" " + phrase + " ");
+    }
+
+    private Set<String> tokens(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Set.of();
+        }
+        return new LinkedHashSet<>(Arrays.asList(normalized.split(" ")));
+    }
+
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static class Candidate {
+        private String id;
+        private double durationSeconds;
+        private String channel;
+        private String title;
+        private double score;
+        private boolean titleMatches;
+    }
+}
@@ -0,0 +1,140 @@
+package com.spotifyweb.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Consome a saída do yt-dlp linha a linha enquanto o processo roda.
+ *
+ * Guarda só as últimas {@link #MAX_LINES} linhas (cada uma cortada em {@link #MAX_LINE_LENGTH}
+ * caracteres), que é o que aparece nas mensagens de erro e onde ficam os {@code --print}. Linhas
+ * geradas por {@link #PROGRESS_ARGS} não entram no buffer: viram {@link YtDlpRunner.Progress}
+ * para o listener. Assim a memória por download é constante, por mais verbosa que seja a saída.
+ */
+public final class YtDlpOutput {
+
+    static final int MAX_LINES = 200;
+    static final int MAX_LINE_LENGTH = 2000;
+
+    private static final String PROGRESS_MARKER = "ytdlp-progress ";
+
+    /**
+     * Argumentos que fazem o yt-dlp imprimir uma linha de progresso legível por máquina a cada
+     * atualização. {@code --progress} é necessário porque {@code --print} implica {@code --quiet}.
+     */
+    public static final List<String> PROGRESS_ARGS = List.of(
+            "--newline",
+            "--progress",
+            "--progress-template",
+            "download:" + PROGRESS_MARKER + "%(progress.downloaded_bytes)s %(progress.total_bytes)s "
+                    + "%(progress.total_bytes_estimate)s %(progress.speed)s %(progress.eta)s"
+    );
+
+    private final YtDlpRunner.ProgressListener listener;
+    private final Deque<String> tail = new ArrayDeque<>();
+    private long droppedLines;
+
+    public YtDlpOutput(YtDlpRunner.ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Lê o stream até o fim. {@code \r} também encerra linha, para o caso de o yt-dlp rodar
+     * sem {@code --newline}.
+     */
+    public void consume(InputStream inputStream) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        char[] buffer = new char[8192];
+        StringBuilder line = new StringBuilder();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    accept(line.toString());
+                    line.setLength(0);
+                } else if (line.length() < MAX_LINE_LENGTH) {
+                    line.append(c);
+                }
+            }
+        }
+        accept(line.toString());
+    }
+
+    public void accept(String line) {
+        if (line == null || line.isBlank()) {
+            return;
+        }
+        if (line.startsWith(PROGRESS_MARKER)) {
+            YtDlpRunner.Progress progress = parseProgress(line.substring(PROGRESS_MARKER.length()));
+            if (progress != null) {
+                if (listener != null) {
+                    try {
+                        listener.onProgress(progress);
+                    } catch (RuntimeException ignored) {
+                        // progresso é informativo; não pode derrubar o download
+                    }
+                }
+                return;
+            }
+        }
+        if (line.length() > MAX_LINE_LENGTH) {
+            line = line.substring(0, MAX_LINE_LENGTH);
+        }
+        if (tail.size() >= MAX_LINES) {
+            tail.removeFirst();
+            droppedLines++;
+        }
+        tail.addLast(line);
+    }
+
+    public String tail() {
+        StringBuilder builder = new StringBuilder();
+        if (droppedLines > 0) {
+            builder.append("[... ").append(droppedLines).append(" linhas omitidas]").append('\n');
+        }
+        for (String line : tail) {
+            builder.append(line).append('\n');
+        }
+        return builder.toString().trim();
+    }
+
+    static YtDlpRunner.Progress parseProgress(String values) {
+        String[] parts = values.trim().split("\\s+");
+        if (parts.length < 5) {
+            return null;
+        }
+        long downloaded = parseLong(parts[0]);
+        if (downloaded < 0) {
+            return null;
+        }
+        long total = parseLong(parts[1]);
+        if (total <= 0) {
+            total = parseLong(parts[2]);
+        }
+        double speed = parseDouble(parts[3]);
+        long eta = parseLong(parts[4]);
+        return new YtDlpRunner.Progress(downloaded, total, speed, eta);
+    }
+
+    private static long parseLong(String value) {
+        double parsed = parseDouble(value);
+        return parsed < 0 ? -1 : (long) parsed;
+    }
+
+    // Campos ausentes saem como "NA" (ou "None" em versões antigas)
+    private static double parseDouble(String value) {
+        try {
+            double parsed = Double.parseDouble(value);
+            return Double.isFinite(parsed) ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
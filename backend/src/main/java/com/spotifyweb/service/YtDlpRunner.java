@@ -0,0 +1,92 @@
+package com.spotifyweb.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executa o yt-dlp com os argumentos informados (sem o nome do executável). A implementação é
+ * escolhida por {@code download.ytdlp.runner}: {@code process} abre um processo por chamada e
+ * {@code pool} reaproveita workers Python já aquecidos.
+ *
+ * A saída é lida enquanto o yt-dlp roda: linhas de progresso (ver {@link YtDlpOutput#PROGRESS_ARGS})
+ * vão para o {@link ProgressListener} e o {@link Result} guarda só as últimas linhas.
+ */
+public interface YtDlpRunner {
+
+    Result run(List<String> args, ProgressListener listener) throws IOException, InterruptedException;
+
+    default Result run(List<String> args) throws IOException, InterruptedException {
+        return run(args, null);
+    }
+
+    default Map<String, Object> snapshot() {
+        return Map.of("runner", "process");
+    }
+
+    @FunctionalInterface
+    interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    class Result {
+        private final int exitCode;
+        private final String output;
+
+        public Result(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * Últimas linhas da saída (sem as de progresso), limitadas por {@link YtDlpOutput}.
+         */
+        public String getOutput() {
+            return output;
+        }
+    }
+
+    /**
+     * Progresso do download de um arquivo. Valores desconhecidos são -1.
+     */
+    class Progress {
+        private final long downloadedBytes;
+        private final long totalBytes;
+        private final double bytesPerSecond;
+        private final long etaSeconds;
+
+        public Progress(long downloadedBytes, long totalBytes, double bytesPerSecond, long etaSeconds) {
+            this.downloadedBytes = downloadedBytes;
+            this.totalBytes = totalBytes;
+            this.bytesPerSecond = bytesPerSecond;
+            this.etaSeconds = etaSeconds;
+        }
+
+        public long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public long getEtaSeconds() {
+            return etaSeconds;
+        }
+
+        public double getPercent() {
+            if (totalBytes <= 0 || downloadedBytes < 0) {
+                return -1;
+            }
+            return Math.min(100.0, (double) downloadedBytes / totalBytes * 100);
+        }
+    }
+}
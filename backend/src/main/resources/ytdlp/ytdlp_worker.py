@@ -0,0 +1,117 @@
+"""Worker yt-dlp de longa duração usado por PooledYtDlpRunner.
+
+Importa o yt_dlp uma única vez e atende pedidos em JSON, um por linha, pela entrada padrão:
+
+    {"id": 1, "type": "ping"}                  -> {"id": 1, "pong": true}
+    {"id": 2, "args": ["-x", "...", "url"]}    -> {"id": 2, "line": "..."} (uma por linha de saída)
+                                                  {"id": 2, "exitCode": 0}
+
+Ao iniciar escreve {"ready": true, "version": "..."} (ou {"ready": false, "error": "..."}).
+As respostas saem por uma cópia do stdout original; o descritor 1 passa a apontar para o
+stderr, para que qualquer escrita direta de subprocessos não corrompa o protocolo.
+"""
+
+import contextlib
+import io
+import json
+import os
+import sys
+
+MAX_LINE_LENGTH = 2000
+
+
+class LineStream(io.TextIOBase):
+    """Repassa cada linha escrita pelo yt-dlp assim que ela termina (quebra de linha ou retorno de carro)."""
+
+    def __init__(self, emit):
+        super().__init__()
+        self._emit = emit
+        self._pending = ""
+
+    @property
+    def encoding(self):
+        return "utf-8"
+
+    def writable(self):
+        return True
+
+    def isatty(self):
+        return False
+
+    def write(self, text):
+        self._pending += text
+        while True:
+            cut = min((i for i in (self._pending.find("\n"), self._pending.find("\r")) if i >= 0), default=-1)
+            if cut < 0:
+                break
+            self._send(self._pending[:cut])
+            self._pending = self._pending[cut + 1:]
+        if len(self._pending) > MAX_LINE_LENGTH:
+            self._pending = self._pending[:MAX_LINE_LENGTH]
+        return len(text)
+
+    def close_line(self):
+        self._send(self._pending)
+        self._pending = ""
+
+    def _send(self, line):
+        if line.strip():
+            self._emit(line[:MAX_LINE_LENGTH])
+
+
+def main():
+    protocol = os.fdopen(os.dup(1), "w", encoding="utf-8", buffering=1)
+    os.dup2(2, 1)
+    sys.stdout = sys.stderr
+
+    def respond(message):
+        protocol.write(json.dumps(message) + "\n")
+        protocol.flush()
+
+    try:
+        import yt_dlp
+        from yt_dlp import version as yt_dlp_version
+    except Exception as error:  # noqa: BLE001 - qualquer falha de import impede o worker
+        respond({"ready": False, "error": repr(error)})
+        return 1
+
+    respond({"ready": True, "version": getattr(yt_dlp_version, "__version__", "unknown")})
+
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            request = json.loads(line)
+        except ValueError as error:
+            respond({"id": None, "exitCode": 2, "output": "invalid request: %r" % (error,)})
+            continue
+
+        request_id = request.get("id")
+        if request.get("type") == "ping":
+            respond({"id": request_id, "pong": True})
+            continue
+
+        buffer = LineStream(lambda text, rid=request_id: respond({"id": rid, "line": text}))
+        exit_code = 0
+        with contextlib.redirect_stdout(buffer), contextlib.redirect_stderr(buffer):
+            try:
+                yt_dlp.main(list(request.get("args", [])))
+            except SystemExit as exit_error:
+                if exit_error.code is None:
+                    exit_code = 0
+                elif isinstance(exit_error.code, int):
+                    exit_code = exit_error.code
+                else:
+                    buffer.write(str(exit_error.code))
+                    exit_code = 1
+            except BaseException as error:  # noqa: BLE001 - o worker precisa sobreviver ao pedido
+                buffer.write(repr(error))
+                exit_code = 1
+        buffer.close_line()
+        respond({"id": request_id, "exitCode": exit_code})
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
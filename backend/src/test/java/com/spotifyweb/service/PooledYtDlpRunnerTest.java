@@ -0,0 +1,138 @@
+package com.spotifyweb.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PooledYtDlpRunnerTest {
+
+    private static final String PYTHON = "python3";
+
+    private final List<List<String>> fallbackCalls = new ArrayList<>();
+    private final YtDlpRunner fallback = (args, listener) -> {
+        fallbackCalls.add(args);
+        return new YtDlpRunner.Result(0, "fallback");
+    };
+
+    private PooledYtDlpRunner runner;
+
+    @BeforeAll
+    static void requirePython() {
+        boolean available;
+        try {
+            available = new ProcessBuilder(PYTHON, "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            available = false;
+        }
+        assumeTrue(available, "python3 is required for the worker pool tests");
+    }
+
+    @AfterEach
+    void close() {
+        if (runner != null) {
+            runner.close();
+        }
+    }
+
+    private PooledYtDlpRunner start(String script, int poolSize, long requestTimeoutMs, long acquireTimeoutMs)
+            throws IOException {
+        runner = new PooledYtDlpRunner(PYTHON, script, poolSize, requestTimeoutMs, acquireTimeoutMs,
+                10_000, 60_000, 100, fallback);
+        runner.start();
+        return runner;
+    }
+
+    private static String stubScript() throws Exception {
+        return Path.of(PooledYtDlpRunnerTest.class.getResource("/ytdlp/stub_worker.py").toURI()).toString();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void runsRequestsOnWarmWorkers() throws Exception {
+        start(stubScript(), 2, 5_000, 1_000);
+
+        YtDlpRunner.Result ok = runner.run(List.of("echo", "hello"));
+        YtDlpRunner.Result failed = runner.run(List.of("fail", "2"));
+
+        assertThat(ok.getExitCode()).isZero();
+        assertThat(ok.getOutput()).isEqualTo("hello");
+        assertThat(failed.getExitCode()).isEqualTo(2);
+        assertThat(failed.getOutput()).contains("ERROR: failed");
+        assertThat(runner.snapshot()).containsEntry("liveWorkers", 2).containsEntry("restarts", 0L);
+        assertThat(fallbackCalls).isEmpty();
+    }
+
+    @Test
+    void replacesWorkerThatDies() throws Exception {
+        start(stubScript(), 1, 5_000, 5_000);
+
+        assertThatThrownBy(() -> runner.run(List.of("die")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exited unexpectedly");
+
+        await(() -> (int) runner.snapshot().get("liveWorkers") == 1);
+        assertThat(runner.run(List.of("echo", "back")).getOutput()).isEqualTo("back");
+        assertThat((long) runner.snapshot().get("restarts")).isEqualTo(1L);
+    }
+
+    @Test
+    void watchdogKillsWorkerOnRequestTimeout() throws Exception {
+        start(stubScript(), 1, 300, 5_000);
+
+        assertThatThrownBy(() -> runner.run(List.of("sleep", "10")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("timed out");
+
+        assertThat(runner.snapshot()).containsEntry("timeouts", 1L);
+        await(() -> (int) runner.snapshot().get("liveWorkers") == 1);
+        assertThat(runner.run(List.of("echo", "ok")).getExitCode()).isZero();
+    }
+
+    @Test
+    void rejectsWhenNoWorkerFreesUpInTime() throws Exception {
+        start(stubScript(), 1, 5_000, 200);
+        CompletableFuture<YtDlpRunner.Result> busy = CompletableFuture.supplyAsync(() -> {
+            try {
+                return runner.run(List.of("sleep", "1"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        await(() -> (int) runner.snapshot().get("idleWorkers") == 0);
+
+        assertThatThrownBy(() -> runner.run(List.of("echo", "late")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("saturated");
+        assertThat(busy.get(5, TimeUnit.SECONDS).getExitCode()).isZero();
+    }
+
+    @Test
+    void fallsBackToProcessRunnerWhenNoWorkerStarts() throws Exception {
+        start("/nonexistent/ytdlp_worker.py", 2, 5_000, 1_000);
+
+        YtDlpRunner.Result result = runner.run(List.of("echo", "hi"));
+
+        assertThat(result.getOutput()).isEqualTo("fallback");
+        assertThat(fallbackCalls).containsExactly(List.of("echo", "hi"));
+        assertThat(runner.snapshot()).containsEntry("liveWorkers", 0).containsEntry("fallbackRequests", 1L);
+    }
+}
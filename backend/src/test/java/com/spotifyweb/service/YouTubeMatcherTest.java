@@ -0,0 +1,109 @@
+package com.spotifyweb.service;
+
+import com.spotifyweb.entity.DownloadTrack;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class YouTubeMatcherTest {
+
+    private final List<List<String>> calls = new ArrayList<>();
+
+    private YouTubeMatcher matcher(String... lines) {
+        YtDlpRunner runner = (args, listener) -> {
+            calls.add(args);
+            return new YtDlpRunner.Result(0, String.join("\n", lines));
+        };
+        ProcessPermits permits = new ProcessPermits();
+        ReflectionTestUtils.setField(permits, "maxProcesses", 1);
+        ReflectionTestUtils.invokeMethod(permits, "init");
+        YouTubeMatcher matcher = new YouTubeMatcher();
+        ReflectionTestUtils.setField(matcher, "ytDlpRunner", runner);
+        ReflectionTestUtils.setField(matcher, "processPermits", permits);
+        ReflectionTestUtils.setField(matcher, "candidates", 5);
+        ReflectionTestUtils.setField(matcher, "minScore", 0.55);
+        ReflectionTestUtils.setField(matcher, "durationToleranceSeconds", 30.0);
+        return matcher;
+    }
+
+    private static String candidate(String id, String duration, String channel, String title) {
+        return id + "\t" + duration + "\t" + channel + "\t" + title;
+    }
+
+    private static DownloadTrack track(String name, String artist, int durationMs) {
+        return new DownloadTrack("job", 0, "spotify-id", name, artist, durationMs);
+    }
+
+    @Test
+    void searchesSeveralCandidatesWithoutDownloading() throws Exception {
+        matcher(candidate("aaaaaaaaaaa", "200", "Artist - Topic", "Song")).findBestMatch(track("Song", "Artist", 200_000));
+
+        List<String> args = calls.get(0);
+        assertThat(args).contains("--flat-playlist", "--skip-download");
+        assertThat(args.get(args.size() - 1)).isEqualTo("ytsearch5:\"Artist\" \"Song\"");
+    }
+
+    @Test
+    void prefersCandidateWithCloserDuration() throws Exception {
+        YouTubeMatcher matcher = matcher(
+                candidate("aaaaaaaaaaa", "260", "Artist", "Artist - Song"),
+                candidate("bbbbbbbbbbb", "202", "Artist", "Artist - Song"));
+
+        assertThat(matcher.findBestMatch(track("Song", "Artist", 200_000))).isEqualTo("bbbbbbbbbbb");
+    }
+
+    @Test
+    void durationScoreFallsOffOutsideTolerance() throws Exception {
+        // Mesmo título e artista: dentro da tolerância passa, muito longe não
+        assertThat(matcher(candidate("aaaaaaaaaaa", "215", "Artist", "Artist - Song"))
+                .findBestMatch(track("Song", "Artist", 200_000))).isEqualTo("aaaaaaaaaaa");
+        assertThatThrownBy(() -> matcher(candidate("aaaaaaaaaaa", "600", "Other", "Song"))
+                .findBestMatch(track("Song", "Artist", 200_000)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void penalizesVersionsTheTrackDoesNotAskFor() throws Exception {
+        YouTubeMatcher matcher = matcher(
+                candidate("aaaaaaaaaaa", "201", "Artist", "Artist - Song (Live)"),
+                candidate("bbbbbbbbbbb", "201", "Artist", "Artist - Song karaoke"),
+                candidate("ccccccccccc", "207", "Artist", "Artist - Song"));
+
+        assertThat(matcher.findBestMatch(track("Song", "Artist", 200_000))).isEqualTo("ccccccccccc");
+    }
+
+    @Test
+    void acceptsLiveVersionWhenTrackIsLive() throws Exception {
+        YouTubeMatcher matcher = matcher(
+                candidate("aaaaaaaaaaa", "200", "Artist - Topic", "Música"),
+                candidate("bbbbbbbbbbb", "246", "Fan", "Artist - Música (Ao Vivo)"));
+
+        assertThat(matcher.findBestMatch(track("Música - Ao Vivo", "Artist", 246_000))).isEqualTo("bbbbbbbbbbb");
+        assertThat(calls.get(0).get(calls.get(0).size() - 1)).isEqualTo("ytsearch5:\"Artist\" \"Música\" ao vivo");
+    }
+
+    @Test
+    void rejectsExactDurationWithoutTitleMatch() {
+        YouTubeMatcher matcher = matcher(candidate("aaaaaaaaaaa", "200", "Artist - Topic", "Another Tune"));
+
+        assertThatThrownBy(() -> matcher.findBestMatch(track("Song Name", "Artist", 200_000)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Nenhum vídeo compatível");
+        assertThat(matcher.snapshot()).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void failsWhenSearchReturnsNothing() {
+        YouTubeMatcher matcher = matcher("ERROR: something went wrong");
+
+        assertThatThrownBy(() -> matcher.findBestMatch(track("Song", "Artist", 200_000)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Nenhum vídeo encontrado");
+    }
+}
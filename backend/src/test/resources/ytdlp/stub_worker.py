@@ -0,0 +1,46 @@
+"""Worker falso para PooledYtDlpRunnerTest: fala o protocolo de ytdlp_worker.py sem o yt_dlp.
+
+Comandos (primeiro argumento do pedido):
+    echo <texto>   -> responde o texto como saída, código 0
+    fail <código>  -> responde com o código informado
+    sleep <seg>    -> dorme antes de responder (tempo limite)
+    die            -> encerra o processo sem responder
+"""
+
+import json
+import os
+import sys
+import time
+
+
+def respond(message):
+    sys.stdout.write(json.dumps(message) + "\n")
+    sys.stdout.flush()
+
+
+def main():
+    respond({"ready": True, "version": "stub"})
+    for line in sys.stdin:
+        request = json.loads(line)
+        request_id = request.get("id")
+        if request.get("type") == "ping":
+            respond({"id": request_id, "pong": True})
+            continue
+        args = request.get("args", [])
+        command = args[0] if args else ""
+        if command == "die":
+            os._exit(3)
+        if command == "sleep":
+            time.sleep(float(args[1]))
+            respond({"id": request_id, "exitCode": 0})
+        elif command == "fail":
+            respond({"id": request_id, "line": "ERROR: failed"})
+            respond({"id": request_id, "exitCode": int(args[1])})
+        else:
+            respond({"id": request_id, "line": " ".join(args[1:])})
+            respond({"id": request_id, "exitCode": 0})
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
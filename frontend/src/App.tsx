@@ -1,6 +1,7 @@
 import { BrowserRouter as Router, Route, Routes } from 'react-router-dom';
 import { AuthProvider } from './context/AuthContext';
 import { DownloadQueueProvider } from './context/DownloadQueueContext';
+import { DownloadProgressProvider } from './context/DownloadProgressContext';
 import LoginPage from './pages/LoginPage';
 import DashboardPage from './pages/DashboardPage';
 import PlaylistDetailPage from './pages/PlaylistDetailPage';
@@ -14,22 +15,24 @@ import Root from './Root';
 function App() {
     return (
         <AuthProvider>
-            <DownloadQueueProvider>
-                <Router>
-                    <DownloadProgressToasts />
-                    <Routes>
-                        <Route path="/" element={<Root />} />
-                        <Route path="/login" element={<LoginPage />} />
-                        <Route path="/callback" element={<CallbackPage />} />
-                        <Route element={<ProtectedRoute />}>
-                            <Route path="/dashboard" element={<DashboardPage />} />
-                            <Route path="/playlist/:id" element={<PlaylistDetailPage />} />
-                            <Route path="/album/:id" element={<AlbumDetailPage />} />
-                            <Route path="/queue" element={<DownloadQueuePage />} />
-                        </Route>
-                    </Routes>
-                </Router>
-            </DownloadQueueProvider>
+            <DownloadProgressProvider>
+                <DownloadQueueProvider>
+                    <Router>
+                        <DownloadProgressToasts />
+                        <Routes>
+                            <Route path="/" element={<Root />} />
+                            <Route path="/login" element={<LoginPage />} />
+                            <Route path="/callback" element={<CallbackPage />} />
+                            <Route element={<ProtectedRoute />}>
+                                <Route path="/dashboard" element={<DashboardPage />} />
+                                <Route path="/playlist/:id" element={<PlaylistDetailPage />} />
+                                <Route path="/album/:id" element={<AlbumDetailPage />} />
+                                <Route path="/queue" element={<DownloadQueuePage />} />
+                            </Route>
+                        </Routes>
+                    </Router>
+                </DownloadQueueProvider>
+            </DownloadProgressProvider>
         </AuthProvider>
     );
 }
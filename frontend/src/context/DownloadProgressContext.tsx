@@ -0,0 +1,92 @@
+import { createContext, useCallback, useContext, useEffect, useState } from 'react';
+import type { ReactNode } from 'react';
+import { Client } from '@stomp/stompjs';
+import SockJS from 'sockjs-client';
+import api, { getAuthToken } from '../services/api';
+import { useAuth } from './AuthContext';
+import type { DownloadProgress } from '../types/Download';
+
+interface DownloadProgressContextType {
+    progressByJob: Record<string, DownloadProgress>;
+    connected: boolean;
+    updateProgress: (progress: DownloadProgress) => void;
+}
+
+const DownloadProgressContext = createContext<DownloadProgressContextType | undefined>(undefined);
+
+// One STOMP connection per tab; the backend pushes every job update to /user/queue/downloads
+export const DownloadProgressProvider = ({ children }: { children: ReactNode }) => {
+    const { isAuthenticated } = useAuth();
+    const [progressByJob, setProgressByJob] = useState<Record<string, DownloadProgress>>({});
+    const [connected, setConnected] = useState(false);
+
+    const updateProgress = useCallback((progress: DownloadProgress) => {
+        setProgressByJob(prev => ({ ...prev, [progress.jobId]: progress }));
+    }, []);
+
+    useEffect(() => {
+        const token = getAuthToken();
+        if (!isAuthenticated || !token) return;
+
+        const client = new Client({
+            webSocketFactory: () => new SockJS('/api/ws'),
+            connectHeaders: { Authorization: `Bearer ${token}` },
+            reconnectDelay: 5000,
+            onConnect: () => {
+                setConnected(true);
+                client.subscribe('/user/queue/downloads', (message) => {
+                    updateProgress(JSON.parse(message.body));
+                });
+            },
+            onWebSocketClose: () => setConnected(false),
+            onStompError: (frame) => {
+                console.error('Broker reported error: ' + frame.headers['message']);
+                console.error('Additional details: ' + frame.body);
+            },
+        });
+
+        client.activate();
+
+        return () => {
+            setConnected(false);
+            client.deactivate();
+        };
+    }, [isAuthenticated, updateProgress]);
+
+    return (
+        <DownloadProgressContext.Provider value={{ progressByJob, connected, updateProgress }}>
+            {children}
+        </DownloadProgressContext.Provider>
+    );
+};
+
+export const useDownloadProgress = () => {
+    const context = useContext(DownloadProgressContext);
+    if (context === undefined) {
+        throw new Error('useDownloadProgress must be used within a DownloadProgressProvider');
+    }
+    return context;
+};
+
+/**
+ * Latest pushed progress for one job. The status endpoint is read once per (re)connection
+ * so updates sent before the subscription existed are not lost; after that it is push only.
+ */
+export const useJobProgress = (jobId: string | null | undefined) => {
+    const { progressByJob, connected, updateProgress } = useDownloadProgress();
+
+    useEffect(() => {
+        if (!jobId) return;
+        let active = true;
+        api.get(`/downloads/status/${jobId}`)
+            .then(response => {
+                if (active) updateProgress(response.data);
+            })
+            .catch(err => console.error('Falha ao consultar status do download', err));
+        return () => {
+            active = false;
+        };
+    }, [jobId, connected, updateProgress]);
+
+    return jobId ? progressByJob[jobId] ?? null : null;
+};
@@ -3,6 +3,7 @@ import { useParams } from 'react-router-dom';
 import { Container, Spinner, Alert, Button, ListGroup, Badge, ProgressBar } from 'react-bootstrap';
 import AppNavbar from '../components/Navbar';
 import api from '../services/api';
+import { useJobProgress } from '../context/DownloadProgressContext';
 
 interface AlbumDetailDTO {
     album: {
@@ -21,20 +22,6 @@ interface AlbumDetailDTO {
     }>;
 }
 
-type DownloadStatus = 'PENDING' | 'IN_PROGRESS' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
-
-interface DownloadProgress {
-    jobId: string;
-    playlistName: string;
-    totalTracks: number;
-    completedTracks: number;
-    failedTracks: number;
-    status: DownloadStatus;
-    currentTrack?: string;
-    progressPercentage?: number;
-    errorMessage?: string;
-}
-
 function formatDuration(ms: number) {
     const minutes = Math.floor(ms / 60000);
     const seconds = ((ms % 60000) / 1000).toFixed(0);
@@ -49,7 +36,9 @@ export default function AlbumDetailPage() {
     const [downloadMessage, setDownloadMessage] = useState('');
     const [downloadError, setDownloadError] = useState('');
     const [jobId, setJobId] = useState<string | null>(null);
-    const [progress, setProgress] = useState<DownloadProgress | null>(null);
+    const progress = useJobProgress(jobId);
+    const jobStatus = progress?.status;
+    const jobError = progress?.errorMessage;
 
     useEffect(() => {
         if (!albumId) return;
@@ -73,48 +62,12 @@ export default function AlbumDetailPage() {
     }, [albumId]);
 
     useEffect(() => {
-        if (!jobId) return;
-
-        let active = true;
-        let interval: ReturnType<typeof setInterval> | undefined;
-
-        const fetchProgress = async () => {
-            if (!active) return;
-            try {
-                const response = await api.get(`/downloads/status/${jobId}`);
-                if (!active) return;
-                setProgress(response.data);
-                if (response.data.status === 'COMPLETED') {
-                    setDownloadMessage('Download do álbum concluído com sucesso!');
-                    if (interval) clearInterval(interval);
-                    active = false;
-                } else if (response.data.status === 'FAILED') {
-                    setDownloadError(response.data.errorMessage || 'O download do álbum terminou com falhas.');
-                    if (interval) clearInterval(interval);
-                    active = false;
-                }
-            } catch (err: any) {
-                if (!active) return;
-                const errorMessage = err.response?.data?.error || err.message || 'Não foi possível consultar o status do download.';
-                setDownloadError(errorMessage);
-                if (interval) clearInterval(interval);
-                active = false;
-            }
-        };
-
-        fetchProgress().finally(() => {
-            if (active) {
-                interval = setInterval(fetchProgress, 3000);
-            }
-        });
-
-        return () => {
-            active = false;
-            if (interval) {
-                clearInterval(interval);
-            }
-        };
-    }, [jobId]);
+        if (jobStatus === 'COMPLETED') {
+            setDownloadMessage('Download do álbum concluído com sucesso!');
+        } else if (jobStatus === 'FAILED') {
+            setDownloadError(jobError || 'O download do álbum terminou com falhas.');
+        }
+    }, [jobStatus, jobError]);
 
     const handleDownloadAlbum = async () => {
         if (!albumId) return;
@@ -124,7 +77,6 @@ export default function AlbumDetailPage() {
             const response = await api.post('/download/album', { url: albumId });
             setDownloadMessage(response.data.message || 'Download do álbum iniciado.');
             setJobId(response.data.jobId);
-            setProgress(null);
         } catch (err: any) {
             console.error('Erro ao iniciar download do álbum', err);
             const errorMessage = err.response?.data?.error || err.message || 'Não foi possível iniciar o download do álbum.';
@@ -5,7 +5,7 @@ import { useAuth } from '../context/AuthContext';
 import api from '../services/api';
 import AppNavbar from '../components/Navbar';
 import type { Album } from '../types/Album';
-import type { DownloadProgress } from '../types/Download';
+import { useJobProgress } from '../context/DownloadProgressContext';
 
 interface Playlist {
     id: string;
@@ -54,7 +54,9 @@ export default function DashboardPage() {
     const [filter, setFilter] = useState('');
     const [downloadState, setDownloadState] = useState<DownloadState>({ message: '', type: null });
     const [albumDownloadJob, setAlbumDownloadJob] = useState<{ jobId: string; name: string } | null>(null);
-    const [albumProgress, setAlbumProgress] = useState<DownloadProgress | null>(null);
+    const albumProgress = useJobProgress(albumDownloadJob?.jobId);
+    const albumJobStatus = albumProgress?.status;
+    const albumJobError = albumProgress?.errorMessage;
 
     useEffect(() => {
         if (authLoading) return;
@@ -92,40 +94,25 @@ export default function DashboardPage() {
     }, [authLoading]);
 
     useEffect(() => {
-        const loadLiked = async () => {
+        // Curtidas e top músicas vêm juntos: o backend só lê os totais, sem paginar a biblioteca
+        const loadSummary = async () => {
             try {
                 setLoading(true);
                 setError('');
-                const response = await api.get('/playlists/liked-tracks');
-                setLiked(normalizePlaylist(response.data, 'Você'));
+                const response = await api.get('/playlists/library-summary');
+                setLiked(normalizePlaylist(response.data.likedTracks, 'Você'));
+                setTop(normalizePlaylist(response.data.topTracks, 'Você'));
             } catch (err: any) {
-                console.error('Erro ao carregar músicas curtidas', err);
+                console.error('Erro ao carregar resumo da biblioteca', err);
                 const msg = err.response?.data?.error || err.message || 'Erro desconhecido';
-                setError(`Não foi possível carregar suas músicas curtidas: ${msg}`);
+                setError(`Não foi possível carregar suas músicas curtidas e top músicas: ${msg}`);
             } finally {
                 setLoading(false);
             }
         };
 
-        const loadTop = async () => {
-            try {
-                setLoading(true);
-                setError('');
-                const response = await api.get('/playlists/top-tracks');
-                setTop(normalizePlaylist(response.data, 'Você'));
-            } catch (err: any) {
-                console.error('Erro ao carregar top músicas', err);
-                const msg = err.response?.data?.error || err.message || 'Erro desconhecido';
-                setError(`Não foi possível carregar suas top músicas: ${msg}`);
-            } finally {
-                setLoading(false);
-            }
-        };
-
-        if (activeView === 'liked' && !liked) {
-            loadLiked();
-        } else if (activeView === 'top' && !top) {
-            loadTop();
+        if ((activeView === 'liked' && !liked) || (activeView === 'top' && !top)) {
+            loadSummary();
         }
     }, [activeView, liked, top]);
 
@@ -144,61 +131,18 @@ export default function DashboardPage() {
     }, [albums, filter]);
 
     useEffect(() => {
-        if (!albumDownloadJob) {
-            setAlbumProgress(null);
-            return;
+        if (albumJobStatus === 'COMPLETED') {
+            setDownloadState({ message: 'Download do álbum concluído com sucesso!', type: 'info' });
+            setAlbumDownloadJob(null);
+        } else if (albumJobStatus === 'FAILED') {
+            setDownloadState({ message: albumJobError || 'O download do álbum terminou com falhas.', type: 'error' });
+            setAlbumDownloadJob(null);
         }
-
-        let active = true;
-        let interval: ReturnType<typeof setInterval> | undefined;
-
-        const fetchProgress = async () => {
-            if (!active) return;
-            try {
-                const response = await api.get(`/downloads/status/${albumDownloadJob.jobId}`);
-                if (!active) return;
-                setAlbumProgress(response.data);
-                if (response.data.status === 'COMPLETED') {
-                    setDownloadState({ message: 'Download do álbum concluído com sucesso!', type: 'info' });
-                    setAlbumProgress(response.data);
-                    setAlbumDownloadJob(null);
-                    if (interval) clearInterval(interval);
-                    active = false;
-                } else if (response.data.status === 'FAILED') {
-                    setDownloadState({ message: response.data.errorMessage || 'O download do álbum terminou com falhas.', type: 'error' });
-                    setAlbumProgress(response.data);
-                    setAlbumDownloadJob(null);
-                    if (interval) clearInterval(interval);
-                    active = false;
-                }
-            } catch (err: any) {
-                if (!active) return;
-                const msg = err.response?.data?.error || err.message || 'Não foi possível consultar o status do download do álbum.';
-                setDownloadState({ message: msg, type: 'error' });
-                setAlbumDownloadJob(null);
-                if (interval) clearInterval(interval);
-                active = false;
-            }
-        };
-
-        fetchProgress().finally(() => {
-            if (active) {
-                interval = setInterval(fetchProgress, 3000);
-            }
-        });
-
-        return () => {
-            active = false;
-            if (interval) {
-                clearInterval(interval);
-            }
-        };
-    }, [albumDownloadJob]);
+    }, [albumJobStatus, albumJobError]);
 
     const handleDownloadAlbum = async (album: Album) => {
         try {
             setDownloadState({ message: '', type: null });
-            setAlbumProgress(null);
             const response = await api.post('/download/album', { url: album.id });
             setDownloadState({ message: response.data.message || 'Download do álbum iniciado.', type: 'info' });
             setAlbumDownloadJob({ jobId: response.data.jobId, name: album.name });
@@ -207,7 +151,6 @@ export default function DashboardPage() {
             const msg = err.response?.data?.error || err.message || 'Erro desconhecido';
             setDownloadState({ message: `Não foi possível iniciar o download do álbum: ${msg}`, type: 'error' });
             setAlbumDownloadJob(null);
-            setAlbumProgress(null);
         }
     };
 
@@ -91,9 +91,9 @@ export default function DownloadQueuePage() {
                             {queue.map((track: Track, index) => (
                                 <tr key={`${track.id}-${index}`}>
                                     <td>{track.name}</td>
-                                    <td>{track.artists.map(a => a.name).join(', ')}</td>
-                                    <td>{track.album.name}</td>
-                                    <td>{formatDuration(track.duration_ms)}</td>
+                                    <td>{track.artists}</td>
+                                    <td>{track.albumName ?? '-'}</td>
+                                    <td>{formatDuration(track.durationMs)}</td>
                                     <td>
                                         <Button variant="outline-danger" size="sm" onClick={() => removeFromQueue(track.id)} disabled={loading}>
                                             Remover
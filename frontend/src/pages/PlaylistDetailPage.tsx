@@ -1,25 +1,14 @@
 import { useEffect, useState } from 'react';
 import { useParams } from 'react-router-dom';
 import { Container, Spinner, Alert, Button, ListGroup, Image, Badge, ProgressBar } from 'react-bootstrap';
-import api from '../services/api';
+import api, { streamNdjson } from '../services/api';
 import AppNavbar from '../components/Navbar';
 import { useDownloadQueue } from '../context/DownloadQueueContext';
+import { useJobProgress } from '../context/DownloadProgressContext';
 import type { Track } from '../types/Track';
 
 type DownloadStatus = 'PENDING' | 'IN_PROGRESS' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
 
-interface DownloadProgress {
-    jobId: string;
-    playlistName?: string;
-    totalTracks?: number;
-    completedTracks?: number;
-    failedTracks?: number;
-    status: DownloadStatus;
-    progressPercentage?: number;
-    errorMessage?: string;
-    currentTrack?: string;
-}
-
 function formatStatusLabel(status: DownloadStatus) {
     switch (status) {
         case 'PENDING':
@@ -45,32 +34,43 @@ export default function PlaylistDetailPage() {
     const [message, setMessage] = useState('');
     const [downloading, setDownloading] = useState(false);
     const [jobId, setJobId] = useState<string | null>(null);
-    const [progress, setProgress] = useState<DownloadProgress | null>(null);
+    const progress = useJobProgress(jobId);
+    const jobStatus = progress?.status;
+    const jobError = progress?.errorMessage;
     const { addToQueue, isInQueue, removeFromQueue } = useDownloadQueue();
 
     useEffect(() => {
         if (!playlistId) return;
 
+        // As faixas chegam por página; a lista é exibida assim que a primeira página chega
+        const controller = new AbortController();
         const fetchTracks = async () => {
             try {
                 setLoading(true);
-                const response = await api.get(`/playlists/${playlistId}`);
-                const data = Array.isArray(response.data)
-                    ? response.data
-                    : Array.isArray(response.data?.items)
-                        ? response.data.items
-                        : [];
-                setTracks(data);
+                setError('');
+                setTracks([]);
+                await streamNdjson<Track>(
+                    `/playlists/${playlistId}/stream`,
+                    (items) => {
+                        setTracks((previous) => [...previous, ...items]);
+                        setLoading(false);
+                    },
+                    controller.signal
+                );
             } catch (err) {
+                if (controller.signal.aborted) return;
                 setError('Não foi possível carregar as faixas da playlist.');
                 console.error(err);
             } finally {
-                setLoading(false);
-                setMessage('');
+                if (!controller.signal.aborted) {
+                    setLoading(false);
+                    setMessage('');
+                }
             }
         };
 
         fetchTracks();
+        return () => controller.abort();
     }, [playlistId]);
 
     const handleDownloadPlaylist = async () => {
@@ -82,7 +82,6 @@ export default function PlaylistDetailPage() {
             const response = await api.post('/downloads/start', { playlistId });
             setJobId(response.data.jobId);
             setMessage(response.data.message || 'Download da playlist iniciado.');
-            setProgress(null);
         } catch (err: any) {
             console.error(err);
             const errorMessage = err.response?.data?.error || err.message || 'Não foi possível iniciar o download da playlist.';
@@ -93,51 +92,12 @@ export default function PlaylistDetailPage() {
     };
 
     useEffect(() => {
-        if (!jobId) return;
-
-        let active = true;
-        let interval: ReturnType<typeof setInterval> | undefined;
-
-        const fetchProgress = async () => {
-            if (!active) return;
-            try {
-                const response = await api.get(`/downloads/status/${jobId}`);
-                if (!active) return;
-                const data: DownloadProgress = response.data;
-                setProgress(data);
-
-                if (data.status === 'COMPLETED') {
-                    setMessage('Download concluído com sucesso!');
-                    if (interval) clearInterval(interval);
-                    active = false;
-                } else if (data.status === 'FAILED') {
-                    setError(data.errorMessage || 'O download da playlist terminou com erros.');
-                    if (interval) clearInterval(interval);
-                    active = false;
-                }
-            } catch (err: any) {
-                if (!active) return;
-                console.error('Falha ao consultar status do download', err);
-                const errorMessage = err.response?.data?.error || err.message || 'Não foi possível consultar o status do download.';
-                setError(errorMessage);
-                if (interval) clearInterval(interval);
-                active = false;
-            }
-        };
-
-        fetchProgress().finally(() => {
-            if (active) {
-                interval = setInterval(fetchProgress, 3000);
-            }
-        });
-
-        return () => {
-            active = false;
-            if (interval) {
-                clearInterval(interval);
-            }
-        };
-    }, [jobId]);
+        if (jobStatus === 'COMPLETED') {
+            setMessage('Download concluído com sucesso!');
+        } else if (jobStatus === 'FAILED') {
+            setError(jobError || 'O download da playlist terminou com erros.');
+        }
+    }, [jobStatus, jobError]);
 
     return (
         <>
@@ -179,11 +139,11 @@ export default function PlaylistDetailPage() {
 
                 {loading && <div className="text-center"><Spinner animation="border" variant="success" /></div>}
                 {error && <Alert variant="danger">{error}</Alert>}
-                {!loading && !error && (
+                {(!loading || tracks.length > 0) && !error && (
                     <ListGroup variant="flush" className="bg-dark rounded">
                         {tracks.map((track, index) => {
-                            const imageUrl = track.album?.images?.[0]?.url;
-                            const artists = track.artists.map(a => a.name).join(', ');
+                            const imageUrl = track.imageUrl;
+                            const artists = track.artists;
                             const inQueue = isInQueue(track.id);
                             return (
                                 <ListGroup.Item
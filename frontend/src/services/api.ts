@@ -6,22 +6,23 @@ const api = axios.create({
     timeout: 10000 // 10 second timeout
 });
 
+// JWT token from localStorage or, as a fallback, from the jwt_token cookie
+export const getAuthToken = (): string | null => {
+    const token = localStorage.getItem('jwt_token');
+    if (token) {
+        return token;
+    }
+    const cookies = document.cookie.split(';');
+    const jwtCookie = cookies.find(cookie => cookie.trim().startsWith('jwt_token='));
+    return jwtCookie ? jwtCookie.split('=')[1] : null;
+};
+
 // Request interceptor to add JWT token and logging
 api.interceptors.request.use(
     (config) => {
         console.log(`Making request to: ${config.baseURL}${config.url}`);
 
-        // Add JWT token from localStorage or cookie
-        let token = localStorage.getItem('jwt_token');
-
-        // If no token in localStorage, try to get from cookies
-        if (!token) {
-            const cookies = document.cookie.split(';');
-            const jwtCookie = cookies.find(cookie => cookie.trim().startsWith('jwt_token='));
-            if (jwtCookie) {
-                token = jwtCookie.split('=')[1];
-            }
-        }
+        const token = getAuthToken();
 
         if (token) {
             config.headers['Authorization'] = `Bearer ${token}`;
@@ -56,4 +57,61 @@ api.interceptors.response.use(
     }
 );
 
+/**
+ * Lê um endpoint NDJSON (um objeto JSON por linha) e entrega os objetos em lotes,
+ * à medida que chegam. Uma linha com `error` interrompe a leitura com esse erro.
+ */
+export const streamNdjson = async <T>(
+    path: string,
+    onItems: (items: T[]) => void,
+    signal?: AbortSignal
+): Promise<void> => {
+    const headers: Record<string, string> = { Accept: 'application/x-ndjson' };
+    const token = getAuthToken();
+    if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+    }
+
+    const response = await fetch(`/api${path}`, { headers, credentials: 'include', signal });
+    if (!response.ok || !response.body) {
+        let message = `Erro ${response.status}`;
+        try {
+            const data = await response.json();
+            message = data?.error || message;
+        } catch {
+            // corpo não é JSON
+        }
+        throw new Error(message);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+
+    const parseLines = (lines: string[]) => {
+        const items: T[] = [];
+        for (const line of lines) {
+            if (!line.trim()) continue;
+            const parsed = JSON.parse(line);
+            if (parsed && typeof parsed === 'object' && 'error' in parsed) {
+                if (items.length) onItems(items);
+                throw new Error(parsed.error);
+            }
+            items.push(parsed as T);
+        }
+        if (items.length) onItems(items);
+    };
+
+    while (true) {
+        const { done, value } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+        const lines = buffer.split('\n');
+        buffer = lines.pop() ?? '';
+        parseLines(lines);
+    }
+    buffer += decoder.decode();
+    parseLines([buffer]);
+};
+
 export default api;
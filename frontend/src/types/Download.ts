@@ -4,8 +4,8 @@ export interface DownloadProgress {
     totalTracks: number;
     completedTracks: number;
     failedTracks: number;
-    status: 'IN_PROGRESS' | 'COMPLETED' | 'FAILED';
-    currentTrack: string;
+    status: 'PENDING' | 'IN_PROGRESS' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
+    currentTrack?: string;
     progressPercentage?: number;
     errorMessage?: string;
 }
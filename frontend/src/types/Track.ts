@@ -1,7 +1,10 @@
+// Projeção enxuta devolvida pelo backend (TrackDTO)
 export interface Track {
     id: string;
     name: string;
-    artists: { name: string }[];
-    album: { name: string, images: { url: string }[] };
-    duration_ms: number;
+    artists: string;
+    durationMs: number;
+    albumId?: string;
+    albumName?: string;
+    imageUrl?: string;
 }
@@ -19,6 +19,7 @@ export default defineConfig({
     proxy: {
       '/api': {
         target: 'http://localhost:8080',
+        ws: true,
         changeOrigin: true,
         secure: false,
       },